@@ -0,0 +1,138 @@
+package categorize;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import org.jmlspecs.openjml.Factory;
+import org.jmlspecs.openjml.IAPI;
+
+/**
+ * Class used to keep OpenJML API instances created before they are needed, so a file can be parsed
+ * without creating a new compiler context each time. At most <code>size</code> instances are in use at
+ * the same time. OpenJML has no way to reset the context of an instance, so an instance is discarded,
+ * and later replaced by a new one, after a number of uses or when a parse through it fails.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class APIPool {
+
+	private final int size;
+	private final int maxUses;
+	private final Semaphore permits;
+	private final LinkedBlockingQueue<IAPI> idle = new LinkedBlockingQueue<IAPI>();
+	private final Map<IAPI, Integer> uses = new IdentityHashMap<IAPI, Integer>();
+	private int created = 0;
+	private int discarded = 0;
+
+	/**
+	 * The constructor of this class.
+	 * @param size = the number of instances that may be used at the same time.
+	 * @param maxUses = the number of parses after which an instance is discarded.
+	 */
+	public APIPool(int size, int maxUses) {
+		this.size = Math.max(1, size);
+		this.maxUses = Math.max(1, maxUses);
+		this.permits = new Semaphore(this.size, true);
+	}
+
+	/**
+	 * Method used to create the instances of the pool before they are needed.
+	 * @throws Exception When an instance could not be created.
+	 */
+	public void warm() throws Exception {
+		while (idle.size() < size) {
+			idle.add(create());
+		}
+	}
+
+	/**
+	 * Method that takes an instance of the pool, waiting while all instances are in use. The instance
+	 * must be given back by release.
+	 * @return - an instance of the OpenJML API.
+	 * @throws Exception When a new instance could not be created.
+	 */
+	public IAPI acquire() throws Exception {
+		permits.acquire();
+		try {
+			IAPI api = idle.poll();
+			return (api != null) ? api : create();
+		} catch (Exception e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Method used to give back an instance taken by acquire.
+	 * @param api = the instance.
+	 * @param failed = true if the last use of the instance failed, so it is discarded.
+	 */
+	public void release(IAPI api, boolean failed) {
+		try {
+			boolean keep;
+			synchronized (uses) {
+				Integer count = uses.get(api);
+				keep = count != null && !failed && count + 1 < maxUses;
+				if(keep){
+					uses.put(api, count + 1);
+				}else if(uses.remove(api) != null){
+					discarded++;
+				}
+			}
+			if(keep)
+				idle.add(api);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Create a new instance of the OpenJML API, counting it among the instances of the pool.
+	 * @return - the new instance.
+	 * @throws Exception When the instance could not be created.
+	 */
+	private IAPI create() throws Exception {
+		IAPI api = Factory.makeAPI();
+		synchronized (uses) {
+			uses.put(api, 0);
+			created++;
+		}
+		return api;
+	}
+
+	/**
+	 * Method used to discard the instances not in use.
+	 */
+	public void clear() {
+		IAPI api;
+		while ((api = idle.poll()) != null) {
+			synchronized (uses) {
+				if(uses.remove(api) != null)
+					discarded++;
+			}
+		}
+	}
+
+	/**
+	 * Method that returns how many instances the pool created, those of warm included.
+	 * @return - the number of instances created.
+	 */
+	public int getCreated() {
+		synchronized (uses) {
+			return created;
+		}
+	}
+
+	/**
+	 * Method that returns how many instances the pool discarded, because of their uses, a failed parse
+	 * or clear.
+	 * @return - the number of instances discarded.
+	 */
+	public int getDiscarded() {
+		synchronized (uses) {
+			return discarded;
+		}
+	}
+}
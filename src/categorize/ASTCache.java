@@ -0,0 +1,149 @@
+package categorize;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jmlspecs.openjml.JmlTree.JmlCompilationUnit;
+
+/**
+ * Class used to keep the ASTs of the files parsed by the OpenJML parser during a categorization, so a
+ * file examined many times is parsed once. Each entry is addressed by the canonical path of the file and
+ * is valid while the file keeps the same last modification time and size. An AST keeps reachable the
+ * context of the parser that built it, whose size cannot be told from the file, so the cache is bounded
+ * by its number of entries: the entries least recently used are evicted when it is exceeded. A cache is
+ * meant to live for a single categorization. The ASTs kept are shared, so they must not be changed by who reads them.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class ASTCache {
+
+	/**
+	 * Number of ASTs kept by default.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 256;
+
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private final int maxEntries;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * Class that keeps the AST of a file, with the last modification time and size of the file parsed.
+	 */
+	private static class Entry {
+		private final long lastModified;
+		private final long length;
+		private final List<JmlCompilationUnit> ast;
+
+		private Entry(long lastModified, long length, List<JmlCompilationUnit> ast) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.ast = ast;
+		}
+	}
+
+	/**
+	 * The constructor of this class.
+	 * @param maxEntries = the maximum number of ASTs kept.
+	 */
+	public ASTCache(int maxEntries) {
+		this.maxEntries = Math.max(1, maxEntries);
+	}
+
+	/**
+	 * Method that returns the AST of a file, if it was parsed since its last change.
+	 * @param f = the file parsed.
+	 * @return - the AST of the file, or null if it is not on the cache.
+	 */
+	public List<JmlCompilationUnit> get(File f) {
+		String key = getKey(f);
+		long lastModified = f.lastModified();
+		long length = f.length();
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if(entry != null && entry.lastModified == lastModified && entry.length == length){
+				hits++;
+				return entry.ast;
+			}
+			if(entry != null)
+				entries.remove(key);
+			misses++;
+			return null;
+		}
+	}
+
+	/**
+	 * Method used to keep the AST of a file, evicting the ASTs least recently used if necessary.
+	 * @param f = the file parsed.
+	 * @param ast = the AST of the file.
+	 */
+	public void put(File f, List<JmlCompilationUnit> ast) {
+		String key = getKey(f);
+		Entry entry = new Entry(f.lastModified(), f.length(), ast);
+		synchronized (this) {
+			entries.put(key, entry);
+			evict();
+		}
+	}
+
+	/**
+	 * Evict the entries least recently used while the cache exceeds its maximum number of entries.
+	 */
+	private void evict() {
+		Iterator<Entry> it = entries.values().iterator();
+		while (entries.size() > maxEntries && it.hasNext()) {
+			it.next();
+			it.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Return the key of a file on the cache, its canonical path when it can be resolved.
+	 */
+	private String getKey(File f) {
+		try {
+			return f.getCanonicalPath();
+		} catch (IOException e) {
+			return f.getAbsolutePath();
+		}
+	}
+
+	/**
+	 * Method that returns the number of lookups that found the AST on the cache.
+	 * @return - the number of hits.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Method that returns the number of lookups that did not find the AST on the cache, or found it outdated.
+	 * @return - the number of misses.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Method that returns the number of ASTs evicted to keep the cache within its maximum number of entries.
+	 * @return - the number of evictions.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Method that returns the share of the lookups that found the AST on the cache.
+	 * @return - the hit rate, between 0 and 1, or 0 if there was no lookup.
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hits + misses;
+		return (lookups == 0) ? 0 : (double) hits / lookups;
+	}
+}
@@ -1,10 +1,14 @@
 package categorize;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
-import utils.Constants;
+import utils.Metrics;
+import utils.Workspace;
 import detect.TestError;
 
 /**
@@ -15,6 +19,45 @@ public class Categorize {
 
 	private Examinator examine; 
 	private List<String> methodsList;
+	private Workspace workspace;
+	private int workers = 1;
+	private static final int SEQUENTIAL_THRESHOLD = 8;
+	private static final int API_MAX_USES = 100;
+	private APIPool apiPool;
+	private ASTCache astCache;
+	private Metrics metrics;
+	
+	/**
+	 * Creates a categorizer of the nonconformances detected on the default workspace.
+	 */
+	public Categorize() {
+		this(Workspace.getDefault());
+	}
+	
+	/**
+	 * Creates a categorizer of the nonconformances detected on a workspace.
+	 * @param workspace - The workspace where the detection was done.
+	 */
+	public Categorize(Workspace workspace) {
+		this.workspace = workspace;
+	}
+	
+	/**
+	 * Set the number of workers used to categorize the nonconformances, each one with its own Examinator.
+	 * The pool of OpenJML API instances used to parse the files has one instance by worker.
+	 * @param workers - the number of workers, 1 (default) to categorize them on the calling thread.
+	 */
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+	
+	/**
+	 * Set the metrics where the statistics of the categorizations will be recorded.
+	 * @param metrics - the metrics of the detection whose nonconformances are categorized.
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
 	
 	/**
 	 * Method that receives the set of nonconformances, and the source folder and returns a set of 
@@ -25,109 +68,209 @@ public class Categorize {
 	 * @return a set of nonconformances with categories and likely causes.
 	 */
 	public Set<Nonconformance> categorize(Set<TestError> errors, String sourceFolder){
+		this.apiPool = new APIPool(workers, API_MAX_USES);
+		try {
+			this.apiPool.warm();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		this.astCache = new ASTCache(ASTCache.DEFAULT_MAX_ENTRIES);
+		this.examine = new Examinator(sourceFolder, workspace);
+		this.examine.setAPIPool(apiPool);
+		this.examine.setASTCache(astCache);
+		this.methodsList = this.examine.generatePossibleMethodsList(workspace.getClasses());
 		Set<Nonconformance> nonconformances = new HashSet<Nonconformance>();
-		this.examine = new Examinator(sourceFolder);
-		this.methodsList = this.examine.generatePossibleMethodsList(Constants.CLASSES);
-		for(TestError te : errors){
-			Nonconformance n = new Nonconformance();
-			switch (te.getType()) {
-			case CategoryName.PRECONDITION:
-				n.setClassName(te.getClassName());
-				n.setMethodName(te.getMethodName());
-				n.setPackageName(te.getPackageName());
-				n.setType(new Precondition());
-				n.setTest(te.getName());
-				n.setMessage(te.getMessage());
-				n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
-				n.setCause(categorizePrecondition(te, sourceFolder, n.getMethodCalling()));
-				n.setTestFile(te.getTestFile());
-				n.setSampleLineOfError(te.getNumberRevealsNC());
-				n.setStackTraceOrder(this.methodsList);
-				nonconformances.add(n);
-				break;
-				
-			case CategoryName.POSTCONDITION:
-				n.setClassName(te.getClassName());
-				n.setMethodName(te.getMethodName());
-				n.setPackageName(te.getPackageName());
-				n.setType(new Postcondition());
-				n.setTest(te.getName());
-				n.setMessage(te.getMessage());
-				n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
-				n.setCause(categorizePostcondition(te, sourceFolder, n.getMethodCalling()));
-				n.setTestFile(te.getTestFile());
-				n.setSampleLineOfError(te.getNumberRevealsNC());
-				n.setStackTraceOrder(this.methodsList);
-				nonconformances.add(n);
-				break;
-
-			case CategoryName.INVARIANT:
-				n.setClassName(te.getClassName());
-				n.setMethodName(te.getMethodName());
-				n.setPackageName(te.getPackageName());
-				n.setType(new Invariant());
-				n.setTest(te.getName());
-				n.setMessage(te.getMessage());
-				n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
-				n.setCause(categorizeInvariant(te, sourceFolder, n.getMethodCalling()));
-				n.setTestFile(te.getTestFile());
-				n.setSampleLineOfError(te.getNumberRevealsNC());
-				n.setStackTraceOrder(this.methodsList);
-				nonconformances.add(n);
-				break;
-				
-			case CategoryName.CONSTRAINT:
-				n.setClassName(te.getClassName());
-				n.setMethodName(te.getMethodName());
-				n.setPackageName(te.getPackageName());
-				n.setType(new Constraint());
-				n.setTest(te.getName());
-				n.setMessage(te.getMessage());
-				n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
-				n.setCause(categorizeConstraint(te, sourceFolder, n.getMethodCalling()));
-				n.setTestFile(te.getTestFile());
-				n.setSampleLineOfError(te.getNumberRevealsNC());
-				n.setStackTraceOrder(this.methodsList);
-				nonconformances.add(n);
-				break;
-				
-			case CategoryName.EVALUATION:
-				n.setClassName(te.getClassName());
-				n.setMethodName(te.getMethodName());
-				n.setPackageName(te.getPackageName());
-				n.setType(new Evaluation());
-				n.setTest(te.getName());
-				n.setMessage(te.getMessage());
-				n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
-				n.setCause(categorizeEvaluation(te, sourceFolder, n.getMethodCalling()));				
-				n.setTestFile(te.getTestFile());
-				n.setSampleLineOfError(te.getNumberRevealsNC());
-				n.setStackTraceOrder(this.methodsList);
-				nonconformances.add(n);
-				break;
-				
-			default:
-				break;
+		if(workers > 1 && errors.size() > 1){
+			nonconformances = categorizeInParallel(new ArrayList<TestError>(errors), sourceFolder);
+		}else{
+			for(TestError te : errors){
+				Nonconformance n = categorize(te, sourceFolder, this.examine);
+				if(n != null)
+					nonconformances.add(n);
 			}
 		}
+		this.apiPool.clear();
+		if(metrics != null){
+			metrics.increment("jmlok_ast_cache_hits_total", astCache.getHits());
+			metrics.increment("jmlok_ast_cache_misses_total", astCache.getMisses());
+			metrics.increment("jmlok_ast_cache_evictions_total", astCache.getEvictions());
+			metrics.setGauge("jmlok_ast_cache_hit_ratio", astCache.getHitRate());
+			metrics.increment("jmlok_openjml_api_created_total", apiPool.getCreated());
+			metrics.increment("jmlok_openjml_api_discarded_total", apiPool.getDiscarded());
+		}
+		this.astCache = null;
 		return nonconformances;
 	}
 	
+	/**
+	 * Method used to categorize the nonconformances on a fork-join pool. The nonconformances are 
+	 * independent of each other, so the set is split among the workers of the pool, each one with its 
+	 * own Examinator, and the nonconformances categorized by each worker are merged at the end.
+	 * @param errors - The nonconformances detected by the Detect module.
+	 * @param sourceFolder - The source folder of the SUT.
+	 * @return a set of nonconformances with categories and likely causes.
+	 */
+	private Set<Nonconformance> categorizeInParallel(List<TestError> errors, final String sourceFolder){
+		ThreadLocal<Examinator> examinators = new ThreadLocal<Examinator>() {
+			@Override
+			protected Examinator initialValue() {
+				Examinator examine = new Examinator(sourceFolder, workspace);
+				examine.setAPIPool(apiPool);
+				examine.setASTCache(astCache);
+				return examine;
+			}
+		};
+		ForkJoinPool pool = new ForkJoinPool(workers);
+		try {
+			return pool.invoke(new CategorizeTask(errors, 0, errors.size(), sourceFolder, examinators));
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Task that categorizes a range of the nonconformances, splitting it in halves while it is larger 
+	 * than SEQUENTIAL_THRESHOLD.
+	 */
+	private class CategorizeTask extends RecursiveTask<Set<Nonconformance>> {
+		private static final long serialVersionUID = 1L;
+		private List<TestError> errors;
+		private int from;
+		private int to;
+		private String sourceFolder;
+		private ThreadLocal<Examinator> examinators;
+		
+		CategorizeTask(List<TestError> errors, int from, int to, String sourceFolder, ThreadLocal<Examinator> examinators) {
+			this.errors = errors;
+			this.from = from;
+			this.to = to;
+			this.sourceFolder = sourceFolder;
+			this.examinators = examinators;
+		}
+		
+		@Override
+		protected Set<Nonconformance> compute() {
+			Set<Nonconformance> nonconformances = new HashSet<Nonconformance>();
+			if(to - from <= SEQUENTIAL_THRESHOLD){
+				Examinator examine = examinators.get();
+				for(int i = from; i < to; i++){
+					Nonconformance n = categorize(errors.get(i), sourceFolder, examine);
+					if(n != null)
+						nonconformances.add(n);
+				}
+				return nonconformances;
+			}
+			int middle = (from + to) >>> 1;
+			CategorizeTask left = new CategorizeTask(errors, from, middle, sourceFolder, examinators);
+			CategorizeTask right = new CategorizeTask(errors, middle, to, sourceFolder, examinators);
+			left.fork();
+			nonconformances.addAll(right.compute());
+			nonconformances.addAll(left.join());
+			return nonconformances;
+		}
+	}
+	
+	/**
+	 * Method that categorizes a single nonconformance, with category and likely cause.
+	 * @param te - The nonconformance detected by the Detect module.
+	 * @param sourceFolder - The source folder of the SUT.
+	 * @param examine - The Examinator used to examine the code of the SUT, used by one thread only.
+	 * @return the nonconformance categorized, or null if the type of the test error is not a category.
+	 */
+	private Nonconformance categorize(TestError te, String sourceFolder, Examinator examine){
+		Nonconformance n = new Nonconformance();
+		switch (te.getType()) {
+		case CategoryName.PRECONDITION:
+			n.setClassName(te.getClassName());
+			n.setMethodName(te.getMethodName());
+			n.setPackageName(te.getPackageName());
+			n.setType(new Precondition());
+			n.setTest(te.getName());
+			n.setMessage(te.getMessage());
+			n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
+			n.setCause(categorizePrecondition(examine, te, sourceFolder, n.getMethodCalling()));
+			n.setTestFile(te.getTestFile());
+			n.setSampleLineOfError(te.getNumberRevealsNC(), workspace);
+			n.setStackTraceOrder(this.methodsList);
+			return n;
+			
+		case CategoryName.POSTCONDITION:
+			n.setClassName(te.getClassName());
+			n.setMethodName(te.getMethodName());
+			n.setPackageName(te.getPackageName());
+			n.setType(new Postcondition());
+			n.setTest(te.getName());
+			n.setMessage(te.getMessage());
+			n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
+			n.setCause(categorizePostcondition(examine, te, sourceFolder, n.getMethodCalling()));
+			n.setTestFile(te.getTestFile());
+			n.setSampleLineOfError(te.getNumberRevealsNC(), workspace);
+			n.setStackTraceOrder(this.methodsList);
+			return n;
+
+		case CategoryName.INVARIANT:
+			n.setClassName(te.getClassName());
+			n.setMethodName(te.getMethodName());
+			n.setPackageName(te.getPackageName());
+			n.setType(new Invariant());
+			n.setTest(te.getName());
+			n.setMessage(te.getMessage());
+			n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
+			n.setCause(categorizeInvariant(examine, te, sourceFolder, n.getMethodCalling()));
+			n.setTestFile(te.getTestFile());
+			n.setSampleLineOfError(te.getNumberRevealsNC(), workspace);
+			n.setStackTraceOrder(this.methodsList);
+			return n;
+			
+		case CategoryName.CONSTRAINT:
+			n.setClassName(te.getClassName());
+			n.setMethodName(te.getMethodName());
+			n.setPackageName(te.getPackageName());
+			n.setType(new Constraint());
+			n.setTest(te.getName());
+			n.setMessage(te.getMessage());
+			n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
+			n.setCause(categorizeConstraint(examine, te, sourceFolder, n.getMethodCalling()));
+			n.setTestFile(te.getTestFile());
+			n.setSampleLineOfError(te.getNumberRevealsNC(), workspace);
+			n.setStackTraceOrder(this.methodsList);
+			return n;
+			
+		case CategoryName.EVALUATION:
+			n.setClassName(te.getClassName());
+			n.setMethodName(te.getMethodName());
+			n.setPackageName(te.getPackageName());
+			n.setType(new Evaluation());
+			n.setTest(te.getName());
+			n.setMessage(te.getMessage());
+			n.setMethodCalling(te.getLineOfErrorInJava(), sourceFolder);
+			n.setCause(categorizeEvaluation(examine, te, sourceFolder, n.getMethodCalling()));				
+			n.setTestFile(te.getTestFile());
+			n.setSampleLineOfError(te.getNumberRevealsNC(), workspace);
+			n.setStackTraceOrder(this.methodsList);
+			return n;
+			
+		default:
+			return null;
+		}
+	}
+	
 	/**
 	 * Method that returns a likely cause for a nonconformance of precondition. Receives a test 
 	 * error - the nonconformance - and the source folder that contains the class that has a nonconformance.
+	 * @param examine - The Examinator used to examine the code of the SUT.
 	 * @param e - The nonconformance.
 	 * @param sourceFolder - The folder that contains the class with a nonconformance.
 	 * @param methodCalling - The string that will be contained on the method declaration(for validation). 
 	 * @return the string that corresponds the likely cause for this precondition error.
 	 */
-	private String categorizePrecondition(TestError e, String sourceFolder, String methodCalling){
+	private String categorizePrecondition(Examinator examine, TestError e, String sourceFolder, String methodCalling){
 		if(e.getPackageName() == "")
-			this.examine.setPrincipalClassName(e.getClassName());
+			examine.setPrincipalClassName(e.getClassName());
 		else
-			this.examine.setPrincipalClassName(e.getPackageName() + "." + e.getClassName());
-		this.examine.setMethodCalling(methodCalling);
-		if(this.examine.checkStrongPrecondition(e.getMethodName())) 
+			examine.setPrincipalClassName(e.getPackageName() + "." + e.getClassName());
+		examine.setMethodCalling(methodCalling);
+		if(examine.checkStrongPrecondition(e.getMethodName())) 
 			return Cause.STRONG_PRE;
 		else 
 			return Cause.WEAK_POST;
@@ -136,18 +279,19 @@ public class Categorize {
 	/**
 	 * Method that returns a likely cause for a nonconformance of postcondition. Receives a test 
 	 * error - the nonconformance - and the source folder that contains the class that has a nonconformance.
+	 * @param examine - The Examinator used to examine the code of the SUT.
 	 * @param e - The nonconformance.
 	 * @param sourceFolder - The folder that contains the class with a nonconformance..
 	 * @param methodCalling - The string that will be contained on the method declaration(for validation). 
 	 * @return the string that corresponds the likely cause for this postcondition error.
 	 */
-	private String categorizePostcondition(TestError e, String sourceFolder, String methodCalling){
+	private String categorizePostcondition(Examinator examine, TestError e, String sourceFolder, String methodCalling){
 		if(e.getPackageName() == "")
-			this.examine.setPrincipalClassName(e.getClassName());
+			examine.setPrincipalClassName(e.getClassName());
 		else
-			this.examine.setPrincipalClassName(e.getPackageName() + "." + e.getClassName());
-		this.examine.setMethodCalling(methodCalling);
-		if(this.examine.checkWeakPrecondition(e.getMethodName()))
+			examine.setPrincipalClassName(e.getPackageName() + "." + e.getClassName());
+		examine.setMethodCalling(methodCalling);
+		if(examine.checkWeakPrecondition(e.getMethodName()))
 			return Cause.WEAK_PRE;
 		else
 			return Cause.STRONG_POST;
@@ -156,30 +300,31 @@ public class Categorize {
 	/**
 	 * Method that returns a likely cause for a nonconformance of invariant. Receives a test 
 	 * error - the nonconformance - and the source folder that contains the class that has a nonconformance.
+	 * @param examine - The Examinator used to examine the code of the SUT.
 	 * @param e - The nonconformance
 	 * @param sourceFolder - The folder that contains the class with a nonconformance.
 	 * @param methodCalling - The string that will be contained on the method declaration(for validation). 
 	 * @return the string that corresponds the likely cause for this invariant error.
 	 */
-	private String categorizeInvariant(TestError e, String sourceFolder, String methodCalling){
+	private String categorizeInvariant(Examinator examine, TestError e, String sourceFolder, String methodCalling){
 		if(e.getPackageName() == "")
-			this.examine.setPrincipalClassName(e.getClassName());
+			examine.setPrincipalClassName(e.getClassName());
 		else 
-			this.examine.setPrincipalClassName(e.getPackageName() + "." + e.getClassName());
-		this.examine.setMethodCalling(methodCalling);
+			examine.setPrincipalClassName(e.getPackageName() + "." + e.getClassName());
+		examine.setMethodCalling(methodCalling);
 		if(!methodCalling.contains("<init>") && !methodCalling.contains("defaultConstructor")){
 			if(e.getMessage().contains("@pre"))
 				return Cause.NULL_RELATED;
 			else{
-				if(this.examine.checkWeakPrecondition(e.getMethodName()))
+				if(examine.checkWeakPrecondition(e.getMethodName()))
 					return Cause.WEAK_PRE;
 				else
 					return Cause.STRONG_INV;
 			}
 		}else{
-			if(this.examine.checkNull(e.getMethodName())) 
+			if(examine.checkNull(e.getMethodName())) 
 				return Cause.NULL_RELATED;
-			else if(this.examine.checkWeakPrecondition(e.getMethodName())) 
+			else if(examine.checkWeakPrecondition(e.getMethodName())) 
 				return Cause.WEAK_PRE;
 			else 
 				return Cause.STRONG_INV;
@@ -189,21 +334,22 @@ public class Categorize {
 	/**
 	 * Method that returns a likely cause for a nonconformance of history constraint. Receives a test 
 	 * error - the nonconformance - and the source folder that contains the class that has a nonconformance.
+	 * @param examine - The Examinator used to examine the code of the SUT.
 	 * @param e - The nonconformance.
 	 * @param sourceFolder - The folder that contains the class with a nonconformance.
 	 * @param methodCalling - The string that will be contained on the method declaration(for validation). 
 	 * @return the string that corresponds the likely cause for this history constraint error.
 	 */
-	private String categorizeConstraint(TestError e, String sourceFolder, String methodCalling){
+	private String categorizeConstraint(Examinator examine, TestError e, String sourceFolder, String methodCalling){
 		String classInvolved = (e.getPackageAndClassCalling().equals("")) ? 
 							   ((e.getPackageName() == "") ? (e.getClassName())
 							 : (e.getPackageName() + "." + e.getClassName()))
 							 : (e.getPackageAndClassCalling());
-		this.examine.setPrincipalClassName(classInvolved);
-		this.examine.setMethodCalling(methodCalling);
-		if(this.examine.checkNull(e.getMethodName())) 
+		examine.setPrincipalClassName(classInvolved);
+		examine.setMethodCalling(methodCalling);
+		if(examine.checkNull(e.getMethodName())) 
 			return Cause.NULL_RELATED;
-		else if(this.examine.checkWeakPrecondition(e.getMethodName())) 
+		else if(examine.checkWeakPrecondition(e.getMethodName())) 
 			return Cause.WEAK_PRE;
 		else 
 			return Cause.STRONG_CONST;
@@ -212,18 +358,19 @@ public class Categorize {
 	/**
 	 * Method that returns a likely cause for a nonconformance of evaluation. Receives a test
 	 * error - The nonconformance - and the source folder that contains the class that has a nonconformance.
+	 * @param examine - The Examinator used to examine the code of the SUT.
 	 * @param e - The nonconformance
 	 * @param sourceFolder - the folder that contains the class with a nonconformance.
 	 * @param methodCalling - The string that will be contained on the method declaration(for validation). 
 	 * @return the string that corresponds the likely cause for this evaluation error.
 	 */
-	private String categorizeEvaluation(TestError e, String sourceFolder, String methodCalling){
+	private String categorizeEvaluation(Examinator examine, TestError e, String sourceFolder, String methodCalling){
 		if(e.getPackageName() == "")
-			this.examine.setPrincipalClassName(e.getClassName());
+			examine.setPrincipalClassName(e.getClassName());
 		else
-			this.examine.setPrincipalClassName(e.getPackageName() + "." + e.getClassName());
-		this.examine.setMethodCalling(methodCalling);
-		if(this.examine.checkWeakPrecondition(e.getMethodName()))
+			examine.setPrincipalClassName(e.getPackageName() + "." + e.getClassName());
+		examine.setMethodCalling(methodCalling);
+		if(examine.checkWeakPrecondition(e.getMethodName()))
 			return Cause.WEAK_PRE;
 		else
 			return Cause.STRONG_POST;
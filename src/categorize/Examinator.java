@@ -16,6 +16,7 @@ import org.jmlspecs.openjml.JmlTree.JmlVariableDecl;
 
 import utils.Constants;
 import utils.FileUtil;
+import utils.Workspace;
 
 import com.sun.source.tree.Tree;
 import com.sun.tools.javac.tree.JCTree;
@@ -50,6 +51,9 @@ public class Examinator {
 	private String methodCalling = "";
 	private ArrayList<String> variables;
 	private boolean isAllVarUpdated = false;
+	private Workspace workspace;
+	private ASTCache astCache = new ASTCache(ASTCache.DEFAULT_MAX_ENTRIES);
+	private APIPool apiPool;
 	
 	/**
 	 * Declares some constants that will be used in Examinator for indicate which verification
@@ -68,7 +72,38 @@ public class Examinator {
 	 *            directory of the source project paste
 	 */
 	public Examinator(String dir) {
+		this(dir, Workspace.getDefault());
+	}
+	
+	/**
+	 * Constructs an PatternsTool object with the directory of the source project paste, whose
+	 * classes were compiled on a workspace.
+	 * 
+	 * @param dir
+	 *            directory of the source project paste
+	 * @param workspace
+	 *            the workspace where the classes were compiled
+	 */
+	public Examinator(String dir, Workspace workspace) {
 		this.srcDir = dir;
+		this.workspace = workspace;
+	}
+	
+	/**
+	 * Change the cache of the ASTs parsed, by default one of this Examinator only.
+	 * @param astCache the cache of the ASTs parsed.
+	 */
+	public void setASTCache(ASTCache astCache) {
+		this.astCache = astCache;
+	}
+	
+	/**
+	 * Change the pool of OpenJML API instances used to parse the files; without a pool, a new instance
+	 * is created for each file parsed.
+	 * @param apiPool the pool of OpenJML API instances.
+	 */
+	public void setAPIPool(APIPool apiPool) {
+		this.apiPool = apiPool;
 	}
 	
 	/**
@@ -85,7 +120,7 @@ public class Examinator {
 	 */
 	public void setPrincipalClassName(String principalClassName) {
 		this.principalClassName = principalClassName;
-		this.variables = FileUtil.getVariablesFromClass(principalClassName);
+		this.variables = FileUtil.getVariablesFromClass(principalClassName, workspace);
 		this.isAllVarUpdated = false;
 	}
 	
@@ -153,7 +188,7 @@ public class Examinator {
 	 */
 	private void updateVariables(String classname) {
 		if(!classname.equals(this.getPrincipalClassName()))
-			for(String s : FileUtil.getVariablesFromClass(classname))
+			for(String s : FileUtil.getVariablesFromClass(classname, workspace))
 				if(!this.variables.contains(s))
 					this.variables.add(s);
 	}
@@ -426,31 +461,67 @@ public class Examinator {
 	}
 	
 	/**
-	 * Take the Class desired from an file or return null.
+	 * Take the Class desired from an file or return null. A file that could not be parsed is reported.
 	 * @param f File to search.
 	 * @param className Name of the class to be searched.
 	 * @return null if none class was found, otherwise the class founded.
 	 */
 	private JmlClassDecl takeClassFromFile(java.io.File f, String className){
-		IAPI app;
+		if(!f.exists())
+			return null;
 		try {
-			if(!f.exists())
-				throw new Exception("The File acessed " + f.getName() + "does not exist.");
-			app = Factory.makeAPI();
-			List<JmlTree.JmlCompilationUnit> ast = app.parseFiles(f);
-			com.sun.tools.javac.util.List<JCTree> acesser;
-			JmlTree.JmlClassDecl ourClass = null;
-			for (acesser = ast.get(0).defs; !acesser.isEmpty(); acesser = acesser.tail)
-				if(acesser.head.getKind().equals(Tree.Kind.CLASS) || acesser.head.getKind().equals(Tree.Kind.INTERFACE)){
-					ourClass = (JmlClassDecl) acesser.head;
-					if(ourClass.name.toString().equals(getOnlyClassName(className)))
-						return ourClass;
-				}
+			List<JmlTree.JmlCompilationUnit> ast = astCache.get(f);
+			if(ast == null){
+				ast = parseFile(f);
+				astCache.put(f, ast);
+			}
+			return findClass(ast, className);
 		} catch (Exception e) {
+			System.err.println("Error parsing " + f.getPath() + ": " + e.getMessage());
 		}
 		return null;
 	}
 	
+	/**
+	 * Take the Class desired from the compilation units of a file, parsed by OpenJML.
+	 * @param ast The compilation units of the file.
+	 * @param className Name of the class to be searched, with or without its package.
+	 * @return null if none class was found, otherwise the class founded.
+	 */
+	public static JmlClassDecl findClass(List<JmlTree.JmlCompilationUnit> ast, String className){
+		if(ast == null || ast.isEmpty())
+			return null;
+		String simpleName = className.substring(className.lastIndexOf(".") + 1);
+		com.sun.tools.javac.util.List<JCTree> acesser;
+		for (acesser = ast.get(0).defs; !acesser.isEmpty(); acesser = acesser.tail)
+			if(acesser.head.getKind().equals(Tree.Kind.CLASS) || acesser.head.getKind().equals(Tree.Kind.INTERFACE)){
+				JmlClassDecl ourClass = (JmlClassDecl) acesser.head;
+				if(ourClass.name.toString().equals(simpleName))
+					return ourClass;
+			}
+		return null;
+	}
+	
+	/**
+	 * Parse a file with an OpenJML API instance taken from the pool, or with a new one when there is no pool.
+	 * @param f File to parse.
+	 * @return the compilation units of the file.
+	 * @throws Exception When the file could not be parsed.
+	 */
+	private List<JmlTree.JmlCompilationUnit> parseFile(java.io.File f) throws Exception {
+		if(apiPool == null)
+			return Factory.makeAPI().parseFiles(f);
+		IAPI app = apiPool.acquire();
+		boolean failed = true;
+		try {
+			List<JmlTree.JmlCompilationUnit> ast = app.parseFiles(f);
+			failed = false;
+			return ast;
+		} finally {
+			apiPool.release(app, failed);
+		}
+	}
+	
 	/**
 	 * Take all methods with the same name desired from an class, and return listed.
 	 * @param clazz The class to walk.
@@ -499,13 +570,13 @@ public class Examinator {
 	 */
 	private boolean examineAllClassAssociated(String className, String methodName, Operations typeOfExamination) throws Exception {
 		if(typeOfExamination == Operations.ATR_VAR_IN_PRECONDITION || typeOfExamination == Operations.REQUIRES_TRUE){
-			ArrayList<String> interfacesOfClass = FileUtil.getInterfacesPathFromClass(className);
+			ArrayList<String> interfacesOfClass = FileUtil.getInterfacesPathFromClass(className, workspace);
 			if(!interfacesOfClass.isEmpty())
 				for (String i : interfacesOfClass)
 					if(examineJavaAndJMLCode(i, methodName, false, typeOfExamination))
 						return true;
 		}
-		String superClassOfClass = FileUtil.getSuperclassPathFromClass(className, srcDir);
+		String superClassOfClass = FileUtil.getSuperclassPathFromClass(className, srcDir, workspace);
 		if(!(superClassOfClass == "")){
 			if(examineJavaAndJMLCode(superClassOfClass, methodName, false, typeOfExamination))
 				return true;
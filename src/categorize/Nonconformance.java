@@ -8,6 +8,7 @@ import java.util.List;
 
 import utils.Constants;
 import utils.FileUtil;
+import utils.Workspace;
 
 /**
  * Class that represents a nonconformance.
@@ -162,10 +163,19 @@ public class Nonconformance {
 	 * @param specifiedLine copy of line line where error was thrown.
 	 */
 	public void setSampleLineOfError(int specifiedLine) {
+		setSampleLineOfError(specifiedLine, Workspace.getDefault());
+	}
+	
+	/**
+	 * Set copy of line from the test file which generate the nonconformance.
+	 * @param specifiedLine copy of line line where error was thrown.
+	 * @param workspace the workspace where the tests were generated.
+	 */
+	public void setSampleLineOfError(int specifiedLine, Workspace workspace) {
 		int[] arr = new int[1];
 		arr[0] = 0;
 		try {
-			this.sampleLineOfError = FileUtil.lineSampleWhoOriginatedError(this.testFile, specifiedLine, this.test, arr);
+			this.sampleLineOfError = FileUtil.lineSampleWhoOriginatedError(this.testFile, specifiedLine, this.test, arr, workspace);
 			this.setCountOcurrencesLineOfError(arr[0]);
 		} catch (IOException e) {
 			this.sampleLineOfError = "";
@@ -0,0 +1,160 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import utils.Constants;
+
+/**
+ * Command line entry point of JMLOK, used to check many SUTs without GUI. It reads a manifest file
+ * where each line has a SUT to be checked, in the format
+ * <pre>source folder;lib folder;time;compiler</pre>
+ * where the compiler is "jmlc" or "openjml" (jmlc when omitted). Empty lines and lines starting
+ * with '#' are ignored. The SUTs are checked at the same time by a bounded number of workers, and
+ * the results file of each one is written to the output directory.
+ * <p>
+ * Usage: <code>BatchMain manifest [-workers n] [-categorizeWorkers n] [-output dir] [-keep]</code>
+ * <p>
+ * The nonconformances of each SUT are categorized by <code>-categorizeWorkers</code> workers (1 by default).
+ * <p>
+ * Exit status: 0 when no nonconformance was found, 1 when some nonconformance was found,
+ * 2 when some SUT could not be checked and 3 when the arguments or the manifest are invalid.
+ * @author Alysson Milanez and Dennis Sousa.
+ */
+public class BatchMain {
+
+	public static final int EXIT_OK = 0;
+	public static final int EXIT_NONCONFORMANCES = 1;
+	public static final int EXIT_FAILURES = 2;
+	public static final int EXIT_USAGE = 3;
+
+	/**
+	 * Run the checking of the SUTs listed on the manifest.
+	 * @param args from command line.
+	 */
+	public static void main(String[] args) {
+		System.exit(run(args));
+	}
+
+	/**
+	 * Run the checking of the SUTs listed on the manifest.
+	 * @param args from command line.
+	 * @return the exit status.
+	 */
+	public static int run(String[] args) {
+		String manifest = null;
+		int workers = Runtime.getRuntime().availableProcessors();
+		int categorizeWorkers = 1;
+		File output = new File("results");
+		boolean keep = false;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if(args[i].equals("-workers"))
+					workers = Integer.parseInt(args[++i]);
+				else if(args[i].equals("-categorizeWorkers"))
+					categorizeWorkers = Integer.parseInt(args[++i]);
+				else if(args[i].equals("-output"))
+					output = new File(args[++i]);
+				else if(args[i].equals("-keep"))
+					keep = true;
+				else if(manifest == null)
+					manifest = args[i];
+				else
+					throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+			if(manifest == null || workers < 1 || categorizeWorkers < 1)
+				throw new IllegalArgumentException("Usage: BatchMain manifest [-workers n] [-categorizeWorkers n] [-output dir] [-keep]");
+		} catch (RuntimeException e) {
+			System.err.println((e.getMessage() == null) ? "Invalid arguments." : e.getMessage());
+			return EXIT_USAGE;
+		}
+		List<DetectionJob> jobs;
+		try {
+			jobs = readManifest(new File(manifest));
+		} catch (Exception e) {
+			System.err.println("Invalid manifest " + manifest + ": " + e.getMessage());
+			return EXIT_USAGE;
+		}
+		for (DetectionJob job : jobs) {
+			job.setResultsFile(new File(output, job.getId() + "-results.xml"));
+			job.setKeepWorkspace(keep);
+			job.setCategorizeWorkers(categorizeWorkers);
+		}
+		return runJobs(jobs, workers);
+	}
+
+	/**
+	 * Run the jobs on a pool of workers, and report the result of each one.
+	 * @param jobs The jobs to be run.
+	 * @param workers The maximum number of jobs running at the same time.
+	 * @return the exit status.
+	 */
+	static int runJobs(List<DetectionJob> jobs, int workers) {
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (DetectionJob job : jobs) {
+			futures.add(executor.submit(job));
+		}
+		executor.shutdown();
+		int status = EXIT_OK;
+		for (int i = 0; i < jobs.size(); i++) {
+			DetectionJob job = jobs.get(i);
+			try {
+				futures.get(i).get();
+				int count = job.getNonconformances().size();
+				System.out.println(job.getId() + ": " + count + " nonconformance(s) in " + job.getSourceFolder());
+				if(count > 0 && status == EXIT_OK)
+					status = EXIT_NONCONFORMANCES;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return EXIT_FAILURES;
+			} catch (ExecutionException e) {
+				System.err.println(job.getId() + ": failed to check " + job.getSourceFolder() + ": " + job.getMessage());
+				status = EXIT_FAILURES;
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Read the jobs listed on a manifest file.
+	 * @param manifest The manifest file.
+	 * @return the jobs of the manifest, whose ids are the line numbers of the manifest.
+	 * @throws IOException When the file could not be read, or some line is invalid.
+	 */
+	static List<DetectionJob> readManifest(File manifest) throws IOException {
+		List<DetectionJob> jobs = new ArrayList<DetectionJob>();
+		BufferedReader in = new BufferedReader(new FileReader(manifest));
+		try {
+			String line;
+			int number = 0;
+			while ((line = in.readLine()) != null) {
+				number++;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#"))
+					continue;
+				String[] fields = line.split(";");
+				if(fields.length < 3 || !fields[2].trim().matches("\\d+"))
+					throw new IOException("line " + number + " should be 'source folder;lib folder;time[;compiler]'.");
+				int compiler = Constants.JMLC_COMPILER;
+				if(fields.length > 3 && fields[3].trim().equalsIgnoreCase("openjml"))
+					compiler = Constants.OPENJML_COMPILER;
+				else if(fields.length > 3 && !fields[3].trim().equalsIgnoreCase("jmlc"))
+					throw new IOException("line " + number + " has an unknown compiler: " + fields[3].trim());
+				String id = "job" + number + "-" + new File(fields[0].trim()).getName();
+				jobs.add(new DetectionJob(id, compiler, fields[0].trim(), fields[1].trim(), fields[2].trim()));
+			}
+		} finally {
+			in.close();
+		}
+		return jobs;
+	}
+}
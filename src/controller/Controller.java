@@ -19,6 +19,8 @@ import org.apache.commons.io.output.ByteArrayOutputStream;
 import utils.ClassPathHacker;
 import utils.Constants;
 import utils.FileUtil;
+import utils.Metrics;
+import utils.Workspace;
 import categorize.Categorize;
 import categorize.Nonconformance;
 import detect.Detect;
@@ -30,6 +32,8 @@ public class Controller {
 	private static Set<TestError> errors;
 	private static Set<Nonconformance> nonconformities;
 	private static String source;
+	private static Workspace workspace = Workspace.getDefault();
+	private static Metrics metrics;
 	
 	/**
 	 * Prepare the for the detect phase of the program.
@@ -58,7 +62,7 @@ public class Controller {
 		PrintStream old = System.out;
 		System.setOut(ps);
 		
-	    final Detect d = new Detect(compiler);
+	    final Detect d = new Detect(compiler, workspace);
 	    EventQueue.invokeLater(new Runnable() {
 			public void run() {
 				try {
@@ -72,6 +76,7 @@ public class Controller {
 		});
 	    
 	    errors = d.detect(source, lib, time);
+	    metrics = d.getMetrics();
 		// System.out.flush();
 	    System.setOut(old);
 	}
@@ -94,11 +99,20 @@ public class Controller {
 	}
 	
 	/**
-	 * Set an hack to add jars on SystemClassLoader.
+	 * Get the workspace where the detection and categorization are done.
+	 * @return the workspace used.
+	 */
+	public static Workspace getWorkspace() {
+		return workspace;
+	}
+	
+	/**
+	 * Set an hack to add jars on SystemClassLoader. Synchronized, because detections may run
+	 * at the same time.
 	 * @param libFolder The name of the library folder containing jars.
 	 */
 	
-	private static void setSystemVariableClassPath(String libFolder) {
+	static synchronized void setSystemVariableClassPath(String libFolder) {
 		boolean isWindows = System.getProperty("os.name").contains("Windows");
 		String separator = (isWindows)?";":":";
 		// ClassLoader must know source directory
@@ -119,10 +133,18 @@ public class Controller {
 	 * @return an list of nonconformances already categorized.
 	 */
 	private static List<Nonconformance> fulfillCategorizePhase(Set<TestError> errors, String source) {
-		Categorize c = new Categorize();
+		Categorize c = new Categorize(workspace);
+		c.setMetrics(metrics);
 		List<Nonconformance> x = new ArrayList<Nonconformance>();
 		nonconformities = c.categorize(errors, source);
-		ResultProducer.generateResult(nonconformities);
+		if(metrics != null){
+			try {
+				metrics.export(workspace);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		ResultProducer.generateResult(nonconformities, workspace);
 		for(Nonconformance n : nonconformities)
 			x.add(n);
 		return x;
@@ -134,7 +156,7 @@ public class Controller {
 	 * @throws IOException When the path is invalid.
 	 */
 	public static void saveResultsInXML(String path) throws IOException {
-		Path source = (new File(Constants.RESULTS)).toPath();
+		Path source = (new File(workspace.getResults())).toPath();
 		Path target = (new File(path + Constants.FILE_SEPARATOR + "results.xml")).toPath();
 		Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
 	}
@@ -0,0 +1,224 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import utils.Workspace;
+import categorize.Categorize;
+import categorize.Nonconformance;
+import detect.Detect;
+import detect.ResultProducer;
+import detect.TestError;
+
+/**
+ * Class that represents one checking of a SUT, made without GUI: the detection and categorization of
+ * its nonconformances, on a workspace of its own. Many jobs can run at the same time.
+ * @author Alysson Milanez and Dennis Sousa.
+ */
+public class DetectionJob implements Callable<Set<Nonconformance>> {
+
+	/**
+	 * The states of a job.
+	 */
+	public enum Status {
+		QUEUED, RUNNING, FINISHED, FAILED
+	}
+
+	private final String id;
+	private final String sourceFolder;
+	private final String libFolder;
+	private final String time;
+	private final int compiler;
+	private volatile Status status = Status.QUEUED;
+	private volatile String message = "";
+	private volatile Set<Nonconformance> nonconformances = new HashSet<Nonconformance>();
+	private volatile long finishedAt = 0;
+	private Workspace workspace;
+	private File resultsFile;
+	private boolean keepWorkspace = false;
+	private int categorizeWorkers = 1;
+
+	/**
+	 * Creates a job to check a SUT.
+	 * @param id The identifier of the job.
+	 * @param compiler The compiler that will be used.
+	 * @param sourceFolder The source folder that the job will analyze.
+	 * @param libFolder The library folder in which the analysis depend of.
+	 * @param time The time (in seconds) to generate tests (with Randoop).
+	 */
+	public DetectionJob(String id, int compiler, String sourceFolder, String libFolder, String time) {
+		this.id = id;
+		this.compiler = compiler;
+		this.sourceFolder = sourceFolder;
+		this.libFolder = libFolder;
+		this.time = time;
+	}
+
+	/**
+	 * Run the detection and categorization phases of the SUT on a new workspace. When a results file
+	 * was set, the file with the nonconformances is copied to it. When the job fails, its message carries
+	 * the cause of the failure and the workspace is kept.
+	 * @return the nonconformances of the SUT, categorized.
+	 * @throws Exception When the detection could not be done.
+	 */
+	@Override
+	public Set<Nonconformance> call() throws Exception {
+		status = Status.RUNNING;
+		try {
+			workspace = Workspace.createUnique();
+			Controller.setSystemVariableClassPath(libFolder);
+			Detect detect = new Detect(compiler, workspace);
+			Set<TestError> errors = detect.detect(sourceFolder, libFolder, time);
+			if(errors == null){
+				Exception cause = detect.getLastError();
+				throw new Exception("Detection of " + sourceFolder + " failed"
+						+ ((cause == null) ? "." : ": " + cause.getMessage()), cause);
+			}
+			Categorize categorize = new Categorize(workspace);
+			categorize.setWorkers(categorizeWorkers);
+			categorize.setMetrics(detect.getMetrics());
+			nonconformances = categorize.categorize(errors, sourceFolder);
+			detect.getMetrics().export(workspace);
+			ResultProducer.generateResult(nonconformances, workspace);
+			if(resultsFile != null)
+				saveResults(resultsFile);
+			status = Status.FINISHED;
+			return nonconformances;
+		} catch (Exception e) {
+			message = e.getMessage();
+			if(workspace != null)
+				message += " The logs and metrics are on the workspace " + workspace.getRoot() + ".";
+			status = Status.FAILED;
+			throw e;
+		} finally {
+			if(workspace != null && !keepWorkspace && status == Status.FINISHED)
+				workspace.delete();
+			finishedAt = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Copy the file results.xml of the job to another file.
+	 * @param target The file where the results will be copied.
+	 * @throws IOException When the file could not be written.
+	 */
+	private void saveResults(File target) throws IOException {
+		File parent = target.getAbsoluteFile().getParentFile();
+		if(parent != null)
+			parent.mkdirs();
+		Files.copy(new File(workspace.getResults()).toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Get the identifier of the job.
+	 * @return the identifier of the job.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Get the source folder that the job analyzes.
+	 * @return the source folder of the SUT.
+	 */
+	public String getSourceFolder() {
+		return sourceFolder;
+	}
+
+	/**
+	 * Get the library folder in which the analysis depend of.
+	 * @return the library folder of the SUT.
+	 */
+	public String getLibFolder() {
+		return libFolder;
+	}
+
+	/**
+	 * Get the time to generate tests.
+	 * @return the time, in seconds.
+	 */
+	public String getTime() {
+		return time;
+	}
+
+	/**
+	 * Get the compiler used by the job.
+	 * @return Constants.JMLC_COMPILER or Constants.OPENJML_COMPILER.
+	 */
+	public int getCompiler() {
+		return compiler;
+	}
+
+	/**
+	 * Get the state of the job.
+	 * @return the state of the job.
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Get the time when the job finished or failed.
+	 * @return the time, in milliseconds since the epoch, or 0 while the job did not end.
+	 */
+	public long getFinishedAt() {
+		return finishedAt;
+	}
+
+	/**
+	 * Get the message of the error that made the job fail.
+	 * @return the message of the error, or an empty string when the job did not fail.
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * Get the nonconformances found by the job, empty until it finishes.
+	 * @return the nonconformances found by the job.
+	 */
+	public Set<Nonconformance> getNonconformances() {
+		return nonconformances;
+	}
+
+	/**
+	 * Set the file where the results of the job will be copied to, when it finishes.
+	 * @param resultsFile The file where the results will be copied.
+	 */
+	public void setResultsFile(File resultsFile) {
+		this.resultsFile = resultsFile;
+	}
+
+	/**
+	 * Choose if the workspace of the job will be kept after it finishes, to inspect the tests generated.
+	 * The workspace of a job that failed is always kept, with the logs and metrics of its stages.
+	 * @param keepWorkspace true to keep the workspace (false by default).
+	 */
+	public void setKeepWorkspace(boolean keepWorkspace) {
+		this.keepWorkspace = keepWorkspace;
+	}
+
+	/**
+	 * Delete the files the job left behind: its results file and its workspace, when it was kept or the
+	 * job failed. Used when the job is forgotten.
+	 */
+	public void discard() {
+		if(resultsFile != null)
+			resultsFile.delete();
+		if(workspace != null)
+			workspace.delete();
+	}
+
+	/**
+	 * Set the number of workers used to categorize the nonconformances of the job.
+	 * @param categorizeWorkers The number of workers, 1 (default) to categorize them on the thread of the job.
+	 */
+	public void setCategorizeWorkers(int categorizeWorkers) {
+		this.categorizeWorkers = categorizeWorkers;
+	}
+}
@@ -0,0 +1,417 @@
+package controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import utils.Constants;
+import categorize.Nonconformance;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local service of JMLOK, that receives detection jobs by HTTP, keeps them on a queue and runs them on a
+ * pool of workers, each one on a workspace of its own. The service listens only on the loopback address,
+ * and answers only the requests that carry its token on the header <code>X-JMLOK-Token</code> and are not
+ * sent by a web page of another origin. The jobs that ended are forgotten after a retention period.
+ * <ul>
+ * <li><code>POST /jobs</code> with the form fields source, lib, time and compiler (jmlc or openjml) queues a
+ * job and answers its id.</li>
+ * <li><code>GET /jobs</code> answers the status of all jobs.</li>
+ * <li><code>GET /jobs/{id}</code> answers the status of a job and, when it finished, its nonconformances.</li>
+ * <li><code>GET /jobs/{id}/results</code> answers the results file of a finished job.</li>
+ * </ul>
+ * @author Alysson Milanez and Dennis Sousa.
+ */
+public class DetectionService {
+
+	/**
+	 * Header of the requests that carries the token of the service.
+	 */
+	public static final String TOKEN_HEADER = "X-JMLOK-Token";
+
+	private final HttpServer server;
+	private final ExecutorService workers;
+	private final ExecutorService handlers;
+	private final byte[] token;
+	private long retention = TimeUnit.HOURS.toMillis(1);
+	private int categorizeWorkers = 1;
+	private final File resultsDir;
+	private final Map<String, DetectionJob> jobs = new LinkedHashMap<String, DetectionJob>();
+	private final AtomicInteger nextId = new AtomicInteger(1);
+
+	/**
+	 * Creates the service, listening on the loopback address.
+	 * @param port The port where the service will listen (0 to choose any free port).
+	 * @param workerCount The maximum number of jobs running at the same time.
+	 * @param resultsDir The directory where the results file of each job will be kept.
+	 * @param token The secret that the requests must carry on the header X-JMLOK-Token.
+	 * @throws IOException When the port could not be used.
+	 */
+	public DetectionService(int port, int workerCount, File resultsDir, String token) throws IOException {
+		if(token == null || token.isEmpty())
+			throw new IllegalArgumentException("The service needs a token.");
+		this.resultsDir = resultsDir;
+		this.token = token.getBytes(StandardCharsets.UTF_8);
+		this.workers = Executors.newFixedThreadPool(workerCount);
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.server.createContext("/jobs", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					if(!isAuthorized(exchange))
+						send(exchange, 403, "text/plain", "Missing or wrong " + TOKEN_HEADER + ", or request from another origin.");
+					else
+						handleJobs(exchange);
+				} catch (RuntimeException e) {
+					send(exchange, 500, "text/plain", String.valueOf(e.getMessage()));
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		this.handlers = Executors.newCachedThreadPool();
+		this.server.setExecutor(handlers);
+	}
+
+	/**
+	 * Set how long the jobs that ended are kept, to be queried, before they are forgotten.
+	 * @param minutes The retention period, in minutes (60 by default).
+	 */
+	public void setRetention(long minutes) {
+		this.retention = TimeUnit.MINUTES.toMillis(minutes);
+	}
+
+	/**
+	 * Set the number of workers used to categorize the nonconformances of each job.
+	 * @param categorizeWorkers The number of workers, 1 (default) to categorize them on the thread of the job.
+	 */
+	public void setCategorizeWorkers(int categorizeWorkers) {
+		this.categorizeWorkers = categorizeWorkers;
+	}
+
+	/**
+	 * Check if a request carries the token of the service and, when it was sent by a web page, if the page
+	 * is of the service itself.
+	 * @param exchange The request.
+	 * @return true if the request may be answered.
+	 */
+	private boolean isAuthorized(HttpExchange exchange) {
+		String origin = exchange.getRequestHeaders().getFirst("Origin");
+		if(origin != null && !origin.equals("http://127.0.0.1:" + getPort()) && !origin.equals("http://localhost:" + getPort()))
+			return false;
+		String sent = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+		return sent != null && MessageDigest.isEqual(token, sent.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Forget the jobs that ended before the retention period, deleting their results file and the
+	 * workspaces kept.
+	 */
+	private void pruneJobs() {
+		long limit = System.currentTimeMillis() - retention;
+		List<DetectionJob> pruned = new ArrayList<DetectionJob>();
+		synchronized (jobs) {
+			Iterator<DetectionJob> it = jobs.values().iterator();
+			while (it.hasNext()) {
+				DetectionJob job = it.next();
+				if(job.getFinishedAt() != 0 && job.getFinishedAt() < limit){
+					it.remove();
+					pruned.add(job);
+				}
+			}
+		}
+		for (DetectionJob job : pruned) {
+			job.discard();
+		}
+	}
+
+	/**
+	 * Starts to answer requests.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops to answer requests, and waits up to a minute for the jobs queued and running to finish; the
+	 * jobs still running after that are interrupted.
+	 * @throws InterruptedException When interrupted while waiting.
+	 */
+	public void stop() throws InterruptedException {
+		server.stop(0);
+		handlers.shutdown();
+		workers.shutdown();
+		if(!workers.awaitTermination(1, TimeUnit.MINUTES))
+			workers.shutdownNow();
+		handlers.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Return the port where the service is listening.
+	 * @return the port of the service.
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Queues a job to be run by the workers of the service.
+	 * @param compiler The compiler that will be used.
+	 * @param sourceFolder The source folder that the job will analyze.
+	 * @param libFolder The library folder in which the analysis depend of.
+	 * @param time The time (in seconds) to generate tests (with Randoop).
+	 * @return the job queued.
+	 */
+	public DetectionJob submit(int compiler, String sourceFolder, String libFolder, String time) {
+		pruneJobs();
+		String id = "job" + nextId.getAndIncrement();
+		DetectionJob job = new DetectionJob(id, compiler, sourceFolder, libFolder, time);
+		job.setResultsFile(new File(resultsDir, id + "-results.xml"));
+		job.setCategorizeWorkers(categorizeWorkers);
+		synchronized (jobs) {
+			jobs.put(id, job);
+		}
+		workers.submit(job);
+		return job;
+	}
+
+	/**
+	 * Answer a request to the jobs of the service.
+	 * @param exchange The request and its answer.
+	 * @throws IOException When the answer could not be sent.
+	 */
+	private void handleJobs(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+		pruneJobs();
+		// path[0] is empty and path[1] is "jobs".
+		if(path.length == 2 && method.equals("POST")){
+			Map<String, String> form = parseForm(readBody(exchange.getRequestBody()));
+			String source = form.get("source");
+			String time = form.containsKey("time") ? form.get("time") : "10";
+			String compiler = form.containsKey("compiler") ? form.get("compiler") : "jmlc";
+			if(source == null || !time.matches("\\d+") || !(compiler.equals("jmlc") || compiler.equals("openjml"))){
+				send(exchange, 400, "text/plain", "Expected the form fields source, lib, time and compiler (jmlc or openjml).");
+				return;
+			}
+			if(!new File(source).isDirectory()){
+				send(exchange, 400, "text/plain", "The source " + source + " is not a directory.");
+				return;
+			}
+			String lib = form.containsKey("lib") ? form.get("lib") : "";
+			DetectionJob job = submit(compiler.equals("jmlc") ? Constants.JMLC_COMPILER : Constants.OPENJML_COMPILER,
+					source, lib, time);
+			send(exchange, 201, "application/json", toJSON(job, false));
+		}else if(path.length == 2 && method.equals("GET")){
+			List<DetectionJob> all;
+			synchronized (jobs) {
+				all = new ArrayList<DetectionJob>(jobs.values());
+			}
+			StringBuilder json = new StringBuilder("[");
+			for (DetectionJob job : all) {
+				json.append((json.length() == 1) ? "" : ",").append(toJSON(job, false));
+			}
+			send(exchange, 200, "application/json", json.append("]").toString());
+		}else if((path.length == 3 || path.length == 4) && method.equals("GET")){
+			DetectionJob job;
+			synchronized (jobs) {
+				job = jobs.get(path[2]);
+			}
+			if(job == null){
+				send(exchange, 404, "text/plain", "No job " + path[2] + ".");
+			}else if(path.length == 3){
+				send(exchange, 200, "application/json", toJSON(job, true));
+			}else if(path[3].equals("results") && job.getStatus() == DetectionJob.Status.FINISHED){
+				byte[] results = Files.readAllBytes(new File(resultsDir, job.getId() + "-results.xml").toPath());
+				send(exchange, 200, "application/xml", results);
+			}else{
+				send(exchange, 404, "text/plain", "No results for job " + job.getId() + ".");
+			}
+		}else{
+			send(exchange, 405, "text/plain", "Unsupported request.");
+		}
+	}
+
+	/**
+	 * Return the JSON representation of a job.
+	 * @param job The job.
+	 * @param withNonconformances true to add the nonconformances found by the job.
+	 * @return the JSON representation of the job.
+	 */
+	private static String toJSON(DetectionJob job, boolean withNonconformances) {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"id\":").append(quote(job.getId()))
+			.append(",\"status\":").append(quote(job.getStatus().toString()))
+			.append(",\"source\":").append(quote(job.getSourceFolder()));
+		if(job.getStatus() == DetectionJob.Status.FAILED)
+			json.append(",\"message\":").append(quote(job.getMessage()));
+		if(job.getStatus() == DetectionJob.Status.FINISHED)
+			json.append(",\"nonconformances\":").append(job.getNonconformances().size());
+		if(withNonconformances && job.getStatus() == DetectionJob.Status.FINISHED){
+			json.append(",\"results\":[");
+			boolean first = true;
+			for (Nonconformance nc : job.getNonconformances()) {
+				json.append(first ? "" : ",")
+					.append("{\"type\":").append(quote(nc.getType()))
+					.append(",\"cause\":").append(quote(nc.getCause()))
+					.append(",\"package\":").append(quote(nc.getPackageName()))
+					.append(",\"class\":").append(quote(nc.getClassName()))
+					.append(",\"method\":").append(quote(nc.getMethodName()))
+					.append(",\"test\":").append(quote(nc.getTest()))
+					.append(",\"testFile\":").append(quote(nc.getTestFile()))
+					.append(",\"message\":").append(quote(nc.getMessage()))
+					.append("}");
+				first = false;
+			}
+			json.append("]");
+		}
+		return json.append("}").toString();
+	}
+
+	/**
+	 * Return a string as a JSON string literal.
+	 * @param s The string.
+	 * @return the JSON string literal.
+	 */
+	private static String quote(String s) {
+		if(s == null)
+			return "null";
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : s.toCharArray()) {
+			if(c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if(c < 0x20)
+				quoted.append(String.format("\\u%04x", (int) c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * Read all content of a request.
+	 * @param in The content of the request.
+	 * @return the content read.
+	 * @throws IOException When the content could not be read.
+	 */
+	private static String readBody(InputStream in) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			body.write(buffer, 0, read);
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Parse the fields of an URL encoded form.
+	 * @param body The form.
+	 * @return the values of the form, by field.
+	 * @throws IOException When the form is badly encoded.
+	 */
+	private static Map<String, String> parseForm(String body) throws IOException {
+		Map<String, String> form = new HashMap<String, String>();
+		for (String pair : body.split("&")) {
+			int eq = pair.indexOf('=');
+			if(eq > 0)
+				form.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+		}
+		return form;
+	}
+
+	/**
+	 * Send the answer of a request.
+	 * @param exchange The request and its answer.
+	 * @param status The HTTP status of the answer.
+	 * @param contentType The type of the content of the answer.
+	 * @param body The content of the answer.
+	 * @throws IOException When the answer could not be sent.
+	 */
+	private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+		send(exchange, status, contentType, body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Send the answer of a request.
+	 * @param exchange The request and its answer.
+	 * @param status The HTTP status of the answer.
+	 * @param contentType The type of the content of the answer.
+	 * @param body The content of the answer.
+	 * @throws IOException When the answer could not be sent.
+	 */
+	private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+
+	/**
+	 * Start the service.
+	 * Usage: <code>DetectionService [-port n] [-workers n] [-categorizeWorkers n] [-output dir] [-token secret] [-retention minutes]</code>
+	 * Without -token, the token is taken from the variable JMLOK_TOKEN or, when it is not set, created
+	 * at random and printed.
+	 * @param args from command line.
+	 * @throws IOException When the service could not be started.
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = 8090;
+		int workerCount = Runtime.getRuntime().availableProcessors();
+		File output = new File("results");
+		String token = System.getenv("JMLOK_TOKEN");
+		long retention = 60;
+		int categorizeWorkers = 1;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if(args[i].equals("-port"))
+				port = Integer.parseInt(args[i + 1]);
+			else if(args[i].equals("-workers"))
+				workerCount = Integer.parseInt(args[i + 1]);
+			else if(args[i].equals("-categorizeWorkers"))
+				categorizeWorkers = Integer.parseInt(args[i + 1]);
+			else if(args[i].equals("-output"))
+				output = new File(args[i + 1]);
+			else if(args[i].equals("-token"))
+				token = args[i + 1];
+			else if(args[i].equals("-retention"))
+				retention = Long.parseLong(args[i + 1]);
+		}
+		boolean generated = token == null || token.isEmpty();
+		if(generated){
+			byte[] secret = new byte[16];
+			new SecureRandom().nextBytes(secret);
+			token = new BigInteger(1, secret).toString(16);
+		}
+		DetectionService service = new DetectionService(port, workerCount, output, token);
+		service.setRetention(retention);
+		service.setCategorizeWorkers(categorizeWorkers);
+		service.start();
+		System.out.println("JMLOK service listening on 127.0.0.1:" + service.getPort());
+		if(generated)
+			System.out.println("Token: " + token);
+	}
+}
@@ -0,0 +1,220 @@
+package detect;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jmlspecs.openjml.Factory;
+import org.jmlspecs.openjml.IAPI;
+import org.jmlspecs.openjml.JmlToken;
+import org.jmlspecs.openjml.JmlTree.JmlClassDecl;
+import org.jmlspecs.openjml.JmlTree.JmlMethodClause;
+import org.jmlspecs.openjml.JmlTree.JmlMethodDecl;
+import org.jmlspecs.openjml.JmlTree.JmlSpecificationCase;
+import org.jmlspecs.openjml.JmlTree.JmlTypeClause;
+
+import utils.Constants;
+import categorize.Examinator;
+
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCExpression;
+
+/**
+ * Class used to find, before the tests generation, which classes of the SUT carry JML contracts
+ * (requires, ensures, invariant and constraint clauses), on their .java file, on their .jml file or on
+ * their superclasses and interfaces of the SUT. The weight of a class is the number of these clauses;
+ * the classes with contracts are the ones where the tests may reveal nonconformances.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class ContractAnalyzer {
+
+	private String srcDir;
+	private Map<String, Integer> ownClauses = new HashMap<String, Integer>();
+	private Map<String, List<String>> supertypes = new HashMap<String, List<String>>();
+	private Map<String, Integer> weights = new LinkedHashMap<String, Integer>();
+
+	/**
+	 * Creates an analyzer of the classes of a source directory.
+	 * @param srcDir = the path to source of the classes.
+	 */
+	public ContractAnalyzer(String srcDir) {
+		this.srcDir = srcDir;
+	}
+
+	/**
+	 * Method used to compute the weight of each class, parsing its .java and .jml files with the
+	 * OpenJML parser. A file that could not be parsed does not add clauses to its class.
+	 * @param classNames = the complete names of the classes of the SUT.
+	 * @return - the weight of the classes, ordered from the highest weight to the lowest one.
+	 * @throws Exception When the OpenJML parser could not be created.
+	 */
+	public Map<String, Integer> analyze(List<String> classNames) throws Exception {
+		IAPI api = Factory.makeAPI();
+		Map<String, List<String>> bySimpleName = new HashMap<String, List<String>>();
+		for (String className : classNames) {
+			String simpleName = getOnlyClassName(className);
+			if(!bySimpleName.containsKey(simpleName))
+				bySimpleName.put(simpleName, new ArrayList<String>());
+			bySimpleName.get(simpleName).add(className);
+		}
+		for (String className : classNames) {
+			int clauses = 0;
+			List<String> supers = new ArrayList<String>();
+			JmlClassDecl javaClass = takeClassFromFile(api, getFile(className, ".java"), className);
+			if(javaClass != null){
+				clauses += countClauses(javaClass);
+				if(javaClass.extending != null)
+					supers.add(javaClass.extending.toString());
+				if(javaClass.implementing != null)
+					for (com.sun.tools.javac.util.List<JCExpression> l = javaClass.implementing; !l.isEmpty(); l = l.tail)
+						supers.add(l.head.toString());
+			}
+			JmlClassDecl jmlClass = takeClassFromFile(api, getFile(className, ".jml"), className);
+			if(jmlClass != null)
+				clauses += countClauses(jmlClass);
+			ownClauses.put(className, clauses);
+			List<String> resolved = new ArrayList<String>();
+			for (String s : supers) {
+				String name = resolve(s, className, bySimpleName);
+				if(name != null)
+					resolved.add(name);
+			}
+			supertypes.put(className, resolved);
+		}
+		List<String> ordered = new ArrayList<String>(classNames);
+		final Map<String, Integer> computed = new HashMap<String, Integer>();
+		for (String className : ordered) {
+			computed.put(className, computeWeight(className, new HashSet<String>()));
+		}
+		Collections.sort(ordered, new Comparator<String>() {
+			@Override
+			public int compare(String a, String b) {
+				return computed.get(b) - computed.get(a);
+			}
+		});
+		weights.clear();
+		for (String className : ordered) {
+			weights.put(className, computed.get(className));
+		}
+		return weights;
+	}
+
+	/**
+	 * Method that returns the classes with some contract, from the highest weight to the lowest one.
+	 * @return - the classes with contracts.
+	 */
+	public List<String> getSpecifiedClasses() {
+		List<String> specified = new ArrayList<String>();
+		for (Map.Entry<String, Integer> e : weights.entrySet()) {
+			if(e.getValue() > 0)
+				specified.add(e.getKey());
+		}
+		return specified;
+	}
+
+	/**
+	 * Method that returns the weight of a class, computed on the last analysis.
+	 * @param className = the complete name of the class.
+	 * @return - the number of clauses of the class and its supertypes, 0 if the class is unknown.
+	 */
+	public int getWeight(String className) {
+		Integer weight = weights.get(className);
+		return (weight == null) ? 0 : weight;
+	}
+
+	/**
+	 * Sum the clauses of a class with the ones of its supertypes of the SUT.
+	 */
+	private int computeWeight(String className, Set<String> visited) {
+		if(!visited.add(className) || !ownClauses.containsKey(className))
+			return 0;
+		int weight = ownClauses.get(className);
+		for (String s : supertypes.get(className)) {
+			weight += computeWeight(s, visited);
+		}
+		return weight;
+	}
+
+	/**
+	 * Resolve the name of a supertype, as written on the source, to a class of the SUT.
+	 * @return the complete name of the supertype, or null when it is not a class of the SUT.
+	 */
+	private String resolve(String name, String className, Map<String, List<String>> bySimpleName) {
+		int generic = name.indexOf('<');
+		if(generic != -1)
+			name = name.substring(0, generic);
+		name = name.trim();
+		List<String> candidates = bySimpleName.get(getOnlyClassName(name));
+		if(candidates == null)
+			return null;
+		if(name.contains(".")){
+			return candidates.contains(name) ? name : null;
+		}
+		int dot = className.lastIndexOf('.');
+		String samePackage = (dot == -1) ? name : className.substring(0, dot + 1) + name;
+		if(candidates.contains(samePackage))
+			return samePackage;
+		return (candidates.size() == 1) ? candidates.get(0) : null;
+	}
+
+	/**
+	 * Count the requires, ensures, invariant and constraint clauses of a class and its inner classes.
+	 */
+	private int countClauses(JmlClassDecl clazz) {
+		int clauses = 0;
+		com.sun.tools.javac.util.List<JCTree> traverser;
+		for (traverser = clazz.defs; !traverser.isEmpty(); traverser = traverser.tail) {
+			if(traverser.head instanceof JmlMethodDecl){
+				JmlMethodDecl method = (JmlMethodDecl) traverser.head;
+				if(method.cases == null || method.cases.cases == null)
+					continue;
+				com.sun.tools.javac.util.List<JmlSpecificationCase> cases;
+				for (cases = method.cases.cases; !cases.isEmpty(); cases = cases.tail) {
+					com.sun.tools.javac.util.List<JmlMethodClause> c;
+					for (c = cases.head.clauses; c != null && !c.isEmpty(); c = c.tail) {
+						if(c.head.token == JmlToken.REQUIRES || c.head.token == JmlToken.ENSURES)
+							clauses++;
+					}
+				}
+			}else if(traverser.head instanceof JmlTypeClause){
+				JmlToken token = ((JmlTypeClause) traverser.head).token;
+				if(token == JmlToken.INVARIANT || token == JmlToken.CONSTRAINT)
+					clauses++;
+			}else if(traverser.head instanceof JmlClassDecl){
+				clauses += countClauses((JmlClassDecl) traverser.head);
+			}
+		}
+		return clauses;
+	}
+
+	/**
+	 * Take the class desired from a file, or null when the file does not exist or could not be parsed.
+	 * A file that could not be parsed is reported, since its class is then taken as having no contracts.
+	 */
+	private JmlClassDecl takeClassFromFile(IAPI api, File f, String className) {
+		if(!f.exists())
+			return null;
+		try {
+			return Examinator.findClass(api.parseFiles(f), className);
+		} catch (Exception e) {
+			System.err.println("Error parsing " + f.getPath() + ", its contracts were not counted: " + e.getMessage());
+		}
+		return null;
+	}
+
+	private File getFile(String className, String extension) {
+		return new File(srcDir + Constants.FILE_SEPARATOR + className.replace('.', '/') + extension);
+	}
+
+	private String getOnlyClassName(String className) {
+		return className.substring(className.lastIndexOf(".") + 1);
+	}
+}
@@ -1,17 +1,29 @@
 package detect;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.tools.ant.DefaultLogger;
@@ -20,6 +32,10 @@ import org.apache.tools.ant.ProjectHelper;
 
 import utils.Constants;
 import utils.FileUtil;
+import utils.LogSink;
+import utils.Metrics;
+import utils.ProcessSupervisor;
+import utils.Workspace;
 
 /**
  * Class used to detect nonconformances in Java/JML programs.
@@ -32,19 +48,49 @@ public class Detect {
 	private boolean isJMLC = false;
 	private boolean isOpenJML = false;
 	private String jmlLib;
-	private File jmlokDir = new File(Constants.TEMP_DIR);
-	private File javaBin = new File(Constants.SOURCE_BIN);
-	private File jmlBin = new File(Constants.JML_BIN);
-	private File testSource = new File(Constants.TEST_DIR);
-	private File testBin = new File(Constants.TEST_BIN);
-	private long startTime;
+	private Workspace workspace;
+	private File jmlokDir;
+	private File javaBin;
+	private File jmlBin;
+	private File testSource;
+	private File testBin;
+	private Metrics metrics = new Metrics();
+	private Exception lastError;
+	private List<LogSink.Subscriber> logSubscribers = new CopyOnWriteArrayList<LogSink.Subscriber>();
+	private LogSink stageLog = createStageLog(null);
 	private List<DetectListener> detectListeners;
 	private String sourceFolder;
 	private String librariesFolder;
 	private String timeout;
+	private boolean inProcessCompilation = true;
+	private boolean incrementalCompilation = false;
+	private boolean jmlCache = true;
+	private long jmlCacheSize = 512L * 1024 * 1024;
+	private int randoopShards = 1;
+	private int testWorkers = Runtime.getRuntime().availableProcessors();
+	private boolean pipelined = false;
+	private int pipelineSlices = 4;
+	private static final long PIPELINE_POLL_INTERVAL = 1000;
+	private static final long PROCESS_GRACE_PERIOD = 60;
+	private ProcessSupervisor processSupervisor = ProcessSupervisor.getShared();
+	private long processCpuLimit = 0;
+	private long processTimeout = 3600;
+	private boolean warmRandoop = false;
+	private int jmlWorkers = 1;
+	private boolean specAwareGeneration = false;
+	private double specifiedTimeShare = 0.8;
+	private List<String> generationClasses;
+	private List<String> specifiedClasses;
+	private boolean adaptiveGeneration = false;
+	private int adaptiveRoundTime = 30;
+	private static final int ADAPTIVE_MIN_SLICE = 5;
+	private static final int ADAPTIVE_PATIENCE = 2;
+	private boolean resume = false;
+	private StageCheckpoint checkpoint = new StageCheckpoint();
+	private String lastFingerprint;
 	
 	private enum StagesDetect{
-		CREATED_DIRECTORIES, COMPILED_JAVA, COMPILED_JML, GENERATED_TESTS, EXECUTED_TESTS, ERROR_ON_DETECTION
+		CREATED_DIRECTORIES, COMPILED_JAVA, COMPILED_JML, GENERATED_TESTS, EXECUTED_TESTS, GENERATED_AND_EXECUTED_TESTS, ERROR_ON_DETECTION
 	}
 	
 	/**
@@ -52,6 +98,22 @@ public class Detect {
 	 * @param comp = the integer that indicates which JML compiler will be used.
 	 */
 	public Detect(int comp) {
+		this(comp, Workspace.getDefault());
+	}
+	
+	/**
+	 * Creates a new instance of Detect class that works on its own workspace, so it can run at the same
+	 * time of other detections, creates the workspace directory and set the JML compiler used.
+	 * @param comp = the integer that indicates which JML compiler will be used.
+	 * @param workspace = the workspace where the detection will be done.
+	 */
+	public Detect(int comp, Workspace workspace) {
+		this.workspace = workspace;
+		jmlokDir = new File(workspace.getRoot());
+		javaBin = new File(workspace.getSourceBin());
+		jmlBin = new File(workspace.getJmlBin());
+		testSource = new File(workspace.getTestDir());
+		testBin = new File(workspace.getTestBin());
 		while (!jmlokDir.exists()) {
 			jmlokDir.mkdirs();
 		}
@@ -80,17 +142,44 @@ public class Detect {
 	 * @throws Exception When some XML cannot be read.
 	 */
 	public Set<TestError> detect(String source, String lib, String timeout){
+		return detect(source, lib, timeout, false);
+	}
+
+	/**
+	 * Method used to detect the nonconformances, resuming, if desired, a previous detection on the same
+	 * workspace (see execute).
+	 * @param source = the path to classes directory.
+	 * @param lib = the path to external libraries directory.
+	 * @param timeout = the time to tests generation.
+	 * @param resume = true to resume the previous detection, false to run all stages.
+	 * @return - The list of nonconformances detected.
+	 */
+	public Set<TestError> detect(String source, String lib, String timeout, boolean resume){
+		lastError = null;
 		try {
-			execute(source, lib, timeout);			
-			ResultProducer r = new ResultProducer();
-			if(isJMLC) return r.listErrors(Constants.JMLC_COMPILER);
-			else return r.listErrors(Constants.OPENJML_COMPILER);
+			execute(source, lib, timeout, resume);
+			ResultProducer r = new ResultProducer(workspace);
+			Set<TestError> errors;
+			if(isJMLC) errors = r.listErrors(Constants.JMLC_COMPILER);
+			else errors = r.listErrors(Constants.OPENJML_COMPILER);
+			metrics.increment("jmlok_tests_executed_total", r.getTestsExecuted());
+			metrics.increment("jmlok_errors_parsed_total", r.getErrorsParsed());
+			metrics.increment("jmlok_nonconformances_found_total", errors.size());
+			return errors;
 		} catch (Exception e) {
+			lastError = e;
 			System.out.println(e.getMessage());
 			triggersEvent(StagesDetect.ERROR_ON_DETECTION);
 			// This line below commented serves to inform all errors just on Detection console.
 			// e.printStackTrace(); 
 			return null;
+		} finally {
+			metrics.recordHeap();
+			try {
+				metrics.export(workspace);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
 	}
 	
@@ -102,21 +191,44 @@ public class Detect {
 	 * @throws Exception When some XML cannot be read.
 	 */
 	public void execute(String srcFolder, String libFolder, String time) throws Exception {
+		execute(srcFolder, libFolder, time, false);
+	}
+
+	/**
+	 * Method that executes the scripts to conformance checking, resuming, if desired, a previous execution
+	 * on the same workspace: the stages completed by it, whose inputs did not change, are skipped, and the
+	 * detection continues from the first stage not completed.
+	 * @param srcFolder = the path to source of files to be tested.
+	 * @param libFolder = the path to external libraries needed for the current SUT.
+	 * @param time = the time to tests generation.
+	 * @param resume = true to resume the previous execution, false to run all stages.
+	 * @throws Exception When some XML cannot be read.
+	 */
+	public void execute(String srcFolder, String libFolder, String time, boolean resume) throws Exception {
 		try {
 			sourceFolder = srcFolder;
 			librariesFolder = libFolder;
+			this.resume = resume;
+			checkpoint = (resume) ? StageCheckpoint.load(new File(workspace.getCheckpoint())) : new StageCheckpoint();
+			lastFingerprint = "";
 
+			metrics = new Metrics();
 			getClassListFile(sourceFolder);
-			initTimer();
+			generationClasses = null;
+			specifiedClasses = null;
 			
 			timeout = time;
 			runStage("Creating directories", "Directories created in", StagesDetect.CREATED_DIRECTORIES);
 			runStage("Compiling the project", "Project compiled in", StagesDetect.COMPILED_JAVA);
 			runStage("Compiling with JML compiler", "Project compiled with JML in", StagesDetect.COMPILED_JML);
 
-			if(!FileUtil.getListPathPrinted(Constants.JML_BIN, FileUtil.DIRECTORIES).equals("")){
-				runStage("Generating tests", "Tests generated in", StagesDetect.GENERATED_TESTS);
-				runStage("Running JUnit to test the JML code", "Tests ran in", StagesDetect.EXECUTED_TESTS);
+			if(!FileUtil.getListPathPrinted(workspace.getJmlBin(), FileUtil.DIRECTORIES).equals("")){
+				if(pipelined || adaptiveGeneration){
+					runStage("Generating and running tests", "Tests generated and ran in", StagesDetect.GENERATED_AND_EXECUTED_TESTS);
+				}else{
+					runStage("Generating tests", "Tests generated in", StagesDetect.GENERATED_TESTS);
+					runStage("Running JUnit to test the JML code", "Tests ran in", StagesDetect.EXECUTED_TESTS);
+				}
 			}else{
 				throw new Exception("JML couldn't compile the files.");
 			}
@@ -125,14 +237,6 @@ public class Detect {
 		}
 	}
 
-	/**
-	 * Initiates timer, to count seconds of each stages of Detect.
-	 */
-	private void initTimer() {
-		setStartTime(0);
-		countTime();
-	}
-
 	/**
 	 * Run a stage from Detection phase.
 	 * @param iniMsg message introducing the stage.
@@ -141,11 +245,126 @@ public class Detect {
 	 * @throws Exception When some stage shows some error.
 	 */
 	private void runStage(String iniMsg, String finMsg, StagesDetect stagesDetect) throws Exception {
+		String fingerprint = FileUtil.hashString(lastFingerprint + "\n" + stagesDetect.name() + "\n" + getStageInputs(stagesDetect));
+		lastFingerprint = fingerprint;
+		if(resume && checkpoint.isComplete(stagesDetect.name(), fingerprint)){
+			System.out.println(iniMsg + "... skipped, completed by a previous execution.");
+			skipStageTasks(stagesDetect);
+			metrics.increment("jmlok_stages_skipped_total", 1);
+			triggersEvent(stagesDetect);
+			return;
+		}
+		if(resume)
+			cleanStageOutputs(stagesDetect);
+		checkpoint.clearFrom(stagesDetect.name());
+		checkpoint.save(new File(workspace.getCheckpoint()));
 		System.out.print(iniMsg + "...");
+		Metrics.Timer timer = metrics.startTimer("jmlok_stage_seconds{stage=\"" + stagesDetect.name().toLowerCase() + "\"}");
+		stageLog = createStageLog(new File(workspace.getLogs(), stagesDetect.name().toLowerCase() + ".log"));
+		try {
+			runStageTasks(stagesDetect);
+		} finally {
+			stageLog.close();
+		}
+		System.out.println(finMsg + " " + ((double) timer.stop() * 0.001) + " seconds");
+		checkpoint.complete(stagesDetect.name(), fingerprint);
+		checkpoint.save(new File(workspace.getCheckpoint()));
+		metrics.recordHeap();
+		triggersEvent(stagesDetect);
+	}
+
+	/**
+	 * Describe the inputs of a stage, besides the outputs of the previous stages, used on the fingerprint
+	 * of the stage saved on the checkpoint.
+	 * @param stagesDetect = the stage.
+	 * @return the inputs of the stage, as text.
+	 * @throws IOException When some source file cannot be read.
+	 */
+	private String getStageInputs(StagesDetect stagesDetect) throws IOException {
+		switch (stagesDetect) {
+		case CREATED_DIRECTORIES:
+			return "compiler=" + ((isJMLC) ? "jmlc" : (isOpenJML) ? "openjml" : "");
+		case COMPILED_JAVA:
+			return SourceManifest.scan(sourceFolder, getClasspathFingerprint(getCompilationClasspath(librariesFolder))).getFingerprint();
+		case COMPILED_JML:
+			StringBuilder specs = new StringBuilder();
+			List<File> jmlFiles = FileUtil.listFiles(sourceFolder, ".jml");
+			Collections.sort(jmlFiles);
+			for (File f : jmlFiles) {
+				specs.append(f.getAbsolutePath()).append('=').append(FileUtil.hashFile(f)).append('\n');
+			}
+			return specs.append(JMLCompilationCache.getCompilerVersion((isJMLC) ? Constants.JMLC_LIB : Constants.OPENJML_SRC)).toString();
+		case GENERATED_TESTS:
+		case GENERATED_AND_EXECUTED_TESTS:
+			return "timeout=" + timeout.trim() + " shards=" + randoopShards + " specAware=" + specAwareGeneration
+					+ " specifiedTimeShare=" + specifiedTimeShare + " pipelined=" + pipelined + " slices=" + pipelineSlices
+					+ " adaptive=" + adaptiveGeneration + " roundTime=" + adaptiveRoundTime
+					+ " randoop=" + getClasspathFingerprint(getRandoopPath());
+		default:
+			return "";
+		}
+	}
+
+	/**
+	 * Do the side effects of the tasks of a stage that the next stages depend on, when the stage is skipped.
+	 * @param stagesDetect = the stage skipped.
+	 */
+	private void skipStageTasks(StagesDetect stagesDetect) {
 		switch (stagesDetect) {
 		case CREATED_DIRECTORIES:
 			createDirectories();
-			cleanDirectories();			
+			break;
+		case COMPILED_JAVA:
+		case GENERATED_TESTS:
+			jmlLib = jmlLib + librariesFolder;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Remove what a previous execution of a stage left on the workspace, before running it again on a resumed
+	 * detection, when the directories are not cleaned at the beginning.
+	 * @param stagesDetect = the stage to be run again.
+	 * @throws IOException When some directory cannot be cleaned.
+	 */
+	private void cleanStageOutputs(StagesDetect stagesDetect) throws IOException {
+		switch (stagesDetect) {
+		case COMPILED_JAVA:
+			if(!incrementalCompilation)
+				FileUtils.cleanDirectory(javaBin);
+			break;
+		case COMPILED_JML:
+			FileUtils.cleanDirectory(jmlBin);
+			break;
+		case GENERATED_TESTS:
+		case GENERATED_AND_EXECUTED_TESTS:
+			FileUtils.cleanDirectory(testSource);
+			FileUtils.cleanDirectory(testBin);
+			break;
+		case EXECUTED_TESTS:
+			for (File f : testSource.listFiles()) {
+				if(f.getName().startsWith("TEST-") && f.getName().endsWith(".xml"))
+					f.delete();
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Run the tasks of a stage of Detection phase.
+	 * @param stagesDetect = the stage to be run.
+	 * @throws Exception When some task of the stage fails.
+	 */
+	private void runStageTasks(StagesDetect stagesDetect) throws Exception {
+		switch (stagesDetect) {
+		case CREATED_DIRECTORIES:
+			createDirectories();
+			if(!resume)
+				cleanDirectories();
 			break;
 		case COMPILED_JAVA:
 			javaCompile(sourceFolder, librariesFolder);
@@ -159,13 +378,52 @@ public class Detect {
 		case EXECUTED_TESTS:
 			runTests(librariesFolder);
 			break;
+		case GENERATED_AND_EXECUTED_TESTS:
+			if(adaptiveGeneration)
+				generateTestsAdaptively(librariesFolder, timeout);
+			else
+				generateAndRunTests(librariesFolder, timeout);
+			break;
 		case ERROR_ON_DETECTION:
 			break;
 		default:
 			break;
 		}
-		System.out.println(finMsg + " " + ((double) countTime() * 0.001) + " seconds");
-		triggersEvent(stagesDetect);
+	}
+
+	/**
+	 * Creates the log of a stage, which writes the output of the tools run on the stage to System.out,
+	 * to the subscribers of the logs of this detection and to a file.
+	 * @param logFile = the file of the log, or null to keep it only in memory.
+	 * @return the log of the stage.
+	 */
+	private LogSink createStageLog(File logFile) {
+		if(logFile != null)
+			logFile.delete();
+		LogSink log = new LogSink(logFile, LogSink.DEFAULT_TAIL_SIZE);
+		log.subscribe(LogSink.SYSTEM_OUT);
+		for (LogSink.Subscriber s : logSubscribers) {
+			log.subscribe(s);
+		}
+		return log;
+	}
+
+	/**
+	 * Add a subscriber to the logs of the stages, that receives the output of the compilers, Randoop
+	 * and JUnit as it is produced.
+	 * @param s = the subscriber.
+	 */
+	public void addLogSubscriber(LogSink.Subscriber s) {
+		logSubscribers.add(s);
+		stageLog.subscribe(s);
+	}
+
+	/**
+	 * Return the log of the stage being run, or of the last one.
+	 * @return the log of the stage.
+	 */
+	public LogSink getStageLog() {
+		return stageLog;
 	}
 
 	/**
@@ -180,7 +438,7 @@ public class Detect {
 			className = className + "\n";
 			lines.append(className);
 		}
-		return FileUtil.makeFile(Constants.CLASSES, lines.toString());
+		return FileUtil.makeFile(workspace.getClasses(), lines.toString());
 	}
 	
 	/**
@@ -206,7 +464,8 @@ public class Detect {
 	 */
 	private void cleanDirectories(){
 		try {
-			FileUtils.cleanDirectory(javaBin);
+			if(!incrementalCompilation)
+				FileUtils.cleanDirectory(javaBin);
 			FileUtils.cleanDirectory(jmlBin);
 			FileUtils.cleanDirectory(testSource);
 			FileUtils.cleanDirectory(testBin);
@@ -222,20 +481,301 @@ public class Detect {
 	 * @throws Exception problem with ANT projects.
 	 */
 	public void javaCompile(String sourceFolder, String libFolder) throws Exception{
-		final StringBuilder buff = new StringBuilder();
 		jmlLib = jmlLib + libFolder;
+		if(inProcessCompilation && JavaCompilation.isAvailable()){
+			javaCompileInProcess(sourceFolder, libFolder);
+			return;
+		}
+		new File(workspace.getSourceManifest()).delete();
 
 		// Run ant file
 		Project p = new Project();
-		DefaultLogger consoleLogger = createLogger(buff);
+		DefaultLogger consoleLogger = createLogger();
 		File buildFile = accessFile("javaCompile.xml");
 		p.setUserProperty("source_folder", sourceFolder);
-		p.setUserProperty("source_bin", Constants.SOURCE_BIN);
+		p.setUserProperty("source_bin", workspace.getSourceBin());
 		p.setUserProperty("lib", libFolder);
 		p.setUserProperty("jmlLib", jmlLib);		
-		runProject(buff, p, buildFile, "javaCompile.xml", "compile_project", consoleLogger);
+		runProject(p, buildFile, "javaCompile.xml", "compile_project", consoleLogger);
 	}
 	
+	/**
+	 * Method to Java compilation of the files inside the running JVM, without ANT. When incremental
+	 * compilation is enabled, only the files changed since the last compilation, and the files that
+	 * reference them, are compiled again.
+	 * @param sourceFolder = the path to source files.
+	 * @param libFolder = the path to external libraries needed to Java compilation.
+	 * @throws Exception When the compiler reports some error.
+	 */
+	private void javaCompileInProcess(String sourceFolder, String libFolder) throws Exception{
+		String classpath = getCompilationClasspath(libFolder);
+		File manifestFile = new File(workspace.getSourceManifest());
+		SourceManifest previous = SourceManifest.load(manifestFile);
+		SourceManifest current = SourceManifest.scan(sourceFolder, getClasspathFingerprint(classpath));
+		// The manifest only is valid again after a successful compilation.
+		manifestFile.delete();
+		List<File> toCompile;
+		if(incrementalCompilation && previous != null && previous.getClasspath().equals(current.getClasspath())
+				&& javaBin.list().length > 0){
+			toCompile = selectChangedSources(sourceFolder, previous, current);
+			classpath = workspace.getSourceBin() + File.pathSeparator + classpath;
+			System.out.print(toCompile.size() + " of " + current.getFiles().size() + " files to compile...");
+		}else{
+			FileUtils.cleanDirectory(javaBin);
+			toCompile = FileUtil.listFiles(sourceFolder, ".java");
+		}
+		JavaCompilation compilation = new JavaCompilation();
+		boolean success = compilation.compile(toCompile, workspace.getSourceBin(), classpath, sourceFolder);
+		for (Diagnostic<? extends JavaFileObject> d : compilation.getDiagnostics()) {
+			System.out.println(JavaCompilation.format(d));
+		}
+		metrics.increment("jmlok_java_files_compiled_total", compilation.getFilesCompiled());
+		if(!success){
+			throw new Exception("Compile failed; " + compilation.getErrorCount() + " error(s) reported by the compiler.");
+		}
+		current.save(manifestFile);
+	}
+
+	/**
+	 * Select the source files that must be compiled again: the files changed since the previous
+	 * compilation and the files that depend, directly or transitively, on some class changed or removed.
+	 * The class files of changed and removed sources are deleted, so no stale class remains.
+	 * @param sourceFolder = the path to source files.
+	 * @param previous = the manifest of the previous compilation.
+	 * @param current = the manifest of the current source files.
+	 * @return the files to be compiled.
+	 * @throws IOException When some source file cannot be read.
+	 */
+	private List<File> selectChangedSources(String sourceFolder, SourceManifest previous, SourceManifest current) throws IOException {
+		List<String> changed = current.changedFrom(previous);
+		List<String> affected = new ArrayList<String>(changed);
+		affected.addAll(current.removedFrom(previous));
+		Set<String> toCompile = new LinkedHashSet<String>(changed);
+		for (String file : affected) {
+			deleteClassFiles(file);
+		}
+		toCompile.addAll(current.dependentsOf(sourceFolder, affected));
+		List<File> files = new ArrayList<File>();
+		for (String file : toCompile) {
+			files.add(new File(sourceFolder, file).getAbsoluteFile());
+		}
+		return files;
+	}
+
+	/**
+	 * Delete the class files generated from a source file, including its inner classes.
+	 * @param sourceFile = the path of the source file, relative to the source folder.
+	 */
+	private void deleteClassFiles(String sourceFile) {
+		int slash = sourceFile.lastIndexOf('/');
+		File dir = (slash == -1) ? javaBin : new File(javaBin, sourceFile.substring(0, slash));
+		String name = sourceFile.substring(slash + 1, sourceFile.length() - ".java".length());
+		File[] classes = dir.listFiles();
+		if(classes == null)
+			return;
+		for (File f : classes) {
+			if(f.getName().equals(name + ".class") || (f.getName().startsWith(name + "$") && f.getName().endsWith(".class")))
+				f.delete();
+		}
+	}
+
+	/**
+	 * Get a fingerprint of the classpath, that changes when some of its entries changes.
+	 * @param classpath = the classpath, separated by the path separator of the system.
+	 * @return the fingerprint of the classpath.
+	 */
+	private String getClasspathFingerprint(String classpath) {
+		StringBuilder sb = new StringBuilder();
+		for (String entry : classpath.split(File.pathSeparator)) {
+			File f = new File(entry);
+			sb.append(entry).append(':').append(f.length()).append(':').append(f.lastModified()).append('\n');
+		}
+		return FileUtil.hashString(sb.toString());
+	}
+
+	/**
+	 * Get the classpath used to compile the project, the same one defined in javaCompile.xml.
+	 * @param libFolder = the path to external libraries needed to Java compilation.
+	 * @return the classpath, separated by the path separator of the system.
+	 */
+	private String getCompilationClasspath(String libFolder) {
+		String classpath = (jmlLib == null) ? "" : jmlLib;
+		if(!libFolder.equals("")){
+			classpath += File.pathSeparator + FileUtil.getListPathPrinted(libFolder, FileUtil.JAR_FILES);
+		}
+		return classpath;
+	}
+
+	/**
+	 * Choose if Java compilation will be made inside the running JVM (default) or by ANT, in a forked JVM.
+	 * @param inProcessCompilation true to compile inside the running JVM.
+	 */
+	public void setInProcessCompilation(boolean inProcessCompilation) {
+		this.inProcessCompilation = inProcessCompilation;
+	}
+
+	/**
+	 * Choose if the Java compilation will be incremental: the compiled classes are kept between executions
+	 * and only the sources changed (and their dependents) are compiled again.
+	 * Incremental compilation is only available with in-process compilation.
+	 * @param incrementalCompilation true to compile incrementally.
+	 */
+	public void setIncrementalCompilation(boolean incrementalCompilation) {
+		this.incrementalCompilation = incrementalCompilation;
+	}
+
+	/**
+	 * Choose if the classes compiled by the JML compiler will be kept in cache between executions (default).
+	 * @param jmlCache true to use the cache.
+	 */
+	public void setJMLCache(boolean jmlCache) {
+		this.jmlCache = jmlCache;
+	}
+
+	/**
+	 * Set the maximum size of the cache of classes compiled by the JML compiler.
+	 * @param jmlCacheSize the maximum size, in bytes.
+	 */
+	public void setJMLCacheSize(long jmlCacheSize) {
+		this.jmlCacheSize = jmlCacheSize;
+	}
+
+	/**
+	 * Set the number of Randoop processes run at the same time, each one over a part of the classes.
+	 * @param randoopShards the number of Randoop processes, 1 (default) to run a single process.
+	 */
+	public void setRandoopShards(int randoopShards) {
+		this.randoopShards = randoopShards;
+	}
+
+	/**
+	 * Set the number of JUnit workers, each one in its own JVM, used to run the tests.
+	 * @param testWorkers the number of workers; by default, the number of available processors.
+	 */
+	public void setTestWorkers(int testWorkers) {
+		this.testWorkers = testWorkers;
+	}
+
+	/**
+	 * Set the number of JML compilers run at the same time, each one over a group of packages.
+	 * @param jmlWorkers the number of JML compilers, 1 (default) to compile all classes with a single one.
+	 */
+	public void setJMLWorkers(int jmlWorkers) {
+		this.jmlWorkers = jmlWorkers;
+	}
+
+	/**
+	 * Choose if the tests generation will target first the classes with JML contracts, on their .java or
+	 * .jml files or on their supertypes, giving to them the larger share of the time to tests generation.
+	 * @param specAwareGeneration true to target first the classes with contracts (false by default).
+	 */
+	public void setSpecAwareGeneration(boolean specAwareGeneration) {
+		this.specAwareGeneration = specAwareGeneration;
+	}
+
+	/**
+	 * Set the share of the time to tests generation given to the classes with JML contracts, when the
+	 * generation targets them first.
+	 * @param specifiedTimeShare the share of the time, between 0 and 1 (0.8 by default).
+	 */
+	public void setSpecifiedTimeShare(double specifiedTimeShare) {
+		this.specifiedTimeShare = specifiedTimeShare;
+	}
+
+	/**
+	 * Choose if the time to tests generation will be split among the classes in rounds, moving the time
+	 * to the classes that still reveal new nonconformances. The tests are run at the end of each round.
+	 * @param adaptiveGeneration true to split the time adaptively (false by default).
+	 */
+	public void setAdaptiveGeneration(boolean adaptiveGeneration) {
+		this.adaptiveGeneration = adaptiveGeneration;
+	}
+
+	/**
+	 * Set the time of each round of the adaptive generation, split among the classes not saturated.
+	 * @param adaptiveRoundTime the time of a round, in seconds, by Randoop process (30 by default).
+	 */
+	public void setAdaptiveRoundTime(int adaptiveRoundTime) {
+		this.adaptiveRoundTime = adaptiveRoundTime;
+	}
+
+	/**
+	 * Return the error that made the last detection fail.
+	 * @return the error of the last detection, or null if it did not fail.
+	 */
+	public Exception getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * Return the workspace where this detection is done.
+	 * @return the workspace of this detection.
+	 */
+	public Workspace getWorkspace() {
+		return workspace;
+	}
+
+	/**
+	 * Set the supervisor that runs the external processes of this detection, like Randoop. By default
+	 * the supervisor shared by all detections of this JVM is used.
+	 * @param processSupervisor the supervisor of the processes.
+	 */
+	public void setProcessSupervisor(ProcessSupervisor processSupervisor) {
+		this.processSupervisor = processSupervisor;
+	}
+
+	/**
+	 * Choose if Randoop will run on the warm worker JVMs, reused between detections, instead of a new
+	 * JVM for each execution. It avoids the JVM startup, which is a large part of short generations.
+	 * @param warmRandoop true to run Randoop on warm workers (false by default).
+	 */
+	public void setWarmRandoop(boolean warmRandoop) {
+		this.warmRandoop = warmRandoop;
+	}
+
+	/**
+	 * Set the maximum CPU time each external process may use before being killed.
+	 * @param processCpuLimit the limit, in seconds (0, the default, for no limit).
+	 */
+	public void setProcessCpuLimit(long processCpuLimit) {
+		this.processCpuLimit = processCpuLimit;
+	}
+
+	/**
+	 * Set the maximum time the JML compiler and each JVM of the tests may run before being killed; the
+	 * time limit of Randoop follows the time to tests generation instead.
+	 * @param processTimeout the limit, in seconds (3600 by default, 0 for no limit).
+	 */
+	public void setProcessTimeout(long processTimeout) {
+		this.processTimeout = processTimeout;
+	}
+
+	/**
+	 * Return the metrics of the last execution of this detection.
+	 * @return the metrics of the detection.
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Choose if the tests will be generated, compiled and run at the same time (pipelined detection).
+	 * The time to tests generation is split in slices, and the tests of each slice are run while
+	 * the next ones are generated.
+	 * @param pipelined true to use pipelined detection.
+	 */
+	public void setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+
+	/**
+	 * Set in how many slices the time to tests generation is split, on pipelined detection.
+	 * @param pipelineSlices the number of slices (4 by default).
+	 */
+	public void setPipelineSlices(int pipelineSlices) {
+		this.pipelineSlices = pipelineSlices;
+	}
+
 	/**
 	 * Method used to generate the tests to conformance checking.
 	 * @param libFolder = the path to external libraries needed to tests generation and compilation.
@@ -243,30 +783,42 @@ public class Detect {
 	 * @throws Exception When the XML cannot be read.
 	 */
 	public void generateTests(String libFolder, String timeout) throws Exception{
-		final StringBuilder buff = new StringBuilder();
 		jmlLib = jmlLib + libFolder;
 		
 		// Run Randoop
-		String pathToRandoop;
-		pathToRandoop = getJARPath() + Constants.FILE_SEPARATOR + "lib" 
-					  + Constants.FILE_SEPARATOR + "randoop.jar";			
-		runRandoop(libFolder, timeout, pathToRandoop);
+		String pathToRandoop = getRandoopPath();
+		if(specAwareGeneration)
+			runRandoopSpecAware(libFolder, timeout, pathToRandoop, "Randoop", 0);
+		else if(randoopShards > 1)
+			runRandoopSharded(libFolder, FileUtil.listNames(sourceFolder, "", ".java"), timeout, pathToRandoop, "Randoop", 0);
+		else
+			runRandoop(libFolder, timeout, pathToRandoop);
+		metrics.increment("jmlok_test_classes_generated_total", new TestBatchWatcher(testSource).poll(true).size());
 		
 		// Run ant file
 		Project p = new Project();
-		DefaultLogger consoleLogger = createLogger(buff);
+		DefaultLogger consoleLogger = createLogger();
 		File buildFile = accessFile("generateTests.xml");
-		p.setUserProperty("classes", Constants.CLASSES);
-		p.setUserProperty("source_bin", Constants.SOURCE_BIN);
-		p.setUserProperty("tests_src", Constants.TEST_DIR);
-		p.setUserProperty("tests_bin", Constants.TEST_BIN);
-		p.setUserProperty("tests_folder", Constants.TESTS);
+		p.setUserProperty("classes", workspace.getClasses());
+		p.setUserProperty("source_bin", workspace.getSourceBin());
+		p.setUserProperty("tests_src", workspace.getTestDir());
+		p.setUserProperty("tests_bin", workspace.getTestBin());
+		p.setUserProperty("tests_folder", workspace.getTests());
 		p.setUserProperty("lib", libFolder);
 		p.setUserProperty("jmlLib", jmlLib);
 		p.setUserProperty("timeout", timeout);
-		runProject(buff, p, buildFile, "generateTests.xml", "compile_tests", consoleLogger);
+		runProject(p, buildFile, "generateTests.xml", "compile_tests", consoleLogger);
 	}
 	
+	/**
+	 * Return the location of Randoop JAR.
+	 * @return the location of Randoop JAR.
+	 */
+	private String getRandoopPath() {
+		return getJARPath() + Constants.FILE_SEPARATOR + "lib" 
+				+ Constants.FILE_SEPARATOR + "randoop.jar";
+	}
+
 	/**
 	 * Uses a command to run Randoop to generate tests.
 	 * @param libFolder = the path to external libraries needed to tests generation and compilation.
@@ -277,51 +829,212 @@ public class Detect {
 	 */
 	private void runRandoop(String libFolder, String timeout,
 			String pathToRandoop) throws IOException, InterruptedException {
-		Runtime runtime = Runtime.getRuntime();
-		Process proc = runtime.exec(FileUtil.getCommandToUseRandoop(timeout, pathToRandoop, FileUtil.getListPathPrinted(libFolder, FileUtil.JAR_FILES)));
-		final InputStreamReader ou = new InputStreamReader(proc.getInputStream());
-		final InputStreamReader er = new InputStreamReader(proc.getErrorStream());
-		final BufferedReader bo = new BufferedReader(ou); 
-		final BufferedReader be = new BufferedReader(er);
-		
-		new Thread(new Runnable() {
-			@Override
-			public void run() {
-				String line = null;
-				try {
-					while ((line = bo.readLine()) != null) {
-						System.out.println(line);
-					}
-					ou.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}		
+		runRandoopCommand(FileUtil.getCommandToUseRandoop(timeout, pathToRandoop, FileUtil.getListPathPrinted(libFolder, FileUtil.JAR_FILES), workspace),
+				pathToRandoop, timeout);
+	}
+
+	/**
+	 * Run Randoop first over the classes with JML contracts, during the share of the time to tests generation
+	 * set to them, and then over all classes, during the rest of the time. The classes with contracts are
+	 * given to Randoop from the highest number of clauses to the lowest one. When no class, or every class,
+	 * has contracts, Randoop runs over all classes during the whole time.
+	 * @param libFolder = the path to external libraries needed to tests generation and compilation.
+	 * @param timeout = the time to tests generation.
+	 * @param pathToRandoop = location of Randoop JAR.
+	 * @param prefix = the prefix of the test class names; the tests over all classes use prefix + "All".
+	 * @param firstSeed = the random seed of the first Randoop process, the next ones use the following seeds.
+	 * @throws Exception = when Randoop could not be run.
+	 */
+	private void runRandoopSpecAware(String libFolder, String timeout, String pathToRandoop, String prefix,
+			int firstSeed) throws Exception {
+		analyzeContracts();
+		int time = Integer.parseInt(timeout.trim());
+		if(specifiedClasses.isEmpty() || specifiedClasses.size() == generationClasses.size() || time < 2){
+			runRandoopSharded(libFolder, generationClasses, timeout, pathToRandoop, prefix, firstSeed);
+			return;
+		}
+		int specifiedTime = (int) Math.max(1, Math.min(time - 1, Math.round(time * specifiedTimeShare)));
+		runRandoopSharded(libFolder, specifiedClasses, String.valueOf(specifiedTime), pathToRandoop, prefix, firstSeed);
+		runRandoopSharded(libFolder, generationClasses, String.valueOf(time - specifiedTime), pathToRandoop,
+				prefix + "All", firstSeed + randoopShards);
+	}
+
+	/**
+	 * Method used to find the classes with JML contracts, once by execution. The classes list file is written
+	 * again with the classes with contracts first, and the weight of each class is written to the contracts
+	 * file of the workspace. When the contracts could not be analyzed, all classes are taken as without contracts.
+	 */
+	private synchronized void analyzeContracts() {
+		if(generationClasses != null)
+			return;
+		List<String> classNames = FileUtil.listNames(sourceFolder, "", ".java");
+		ContractAnalyzer analyzer = new ContractAnalyzer(sourceFolder);
+		Map<String, Integer> weights;
+		try {
+			weights = analyzer.analyze(classNames);
+		} catch (Exception e) {
+			System.out.println("The JML contracts could not be analyzed: " + e.getMessage());
+			generationClasses = classNames;
+			specifiedClasses = new ArrayList<String>();
+			return;
+		}
+		generationClasses = new ArrayList<String>(weights.keySet());
+		specifiedClasses = analyzer.getSpecifiedClasses();
+		StringBuilder classes = new StringBuilder();
+		StringBuilder contracts = new StringBuilder();
+		for (Map.Entry<String, Integer> e : weights.entrySet()) {
+			classes.append(e.getKey()).append("\n");
+			contracts.append(e.getValue()).append(' ').append(e.getKey()).append("\n");
+		}
+		FileUtil.makeFile(workspace.getClasses(), classes.toString());
+		FileUtil.makeFile(workspace.getContracts(), contracts.toString());
+		metrics.increment("jmlok_specified_classes_total", specifiedClasses.size());
+		System.out.print(specifiedClasses.size() + " of " + generationClasses.size() + " classes with JML contracts. ");
+	}
+
+	/**
+	 * Run Randoop in several processes at the same time, each one over a shard of the classes list,
+	 * with its own seed and output directory. The tests generated are then moved to the tests directory,
+	 * each shard using a different test class name: the first shard uses prefix + "Test" and the others
+	 * prefix + "Shard" + i + "Test".
+	 * @param libFolder = the path to external libraries needed to tests generation and compilation.
+	 * @param classNames = the complete names of the classes to be tested.
+	 * @param timeout = the time to tests generation, used by every shard.
+	 * @param pathToRandoop = location of Randoop JAR.
+	 * @param prefix = the prefix of the test class names.
+	 * @param firstSeed = the random seed of the first shard, the next shards use the following ones.
+	 * @throws Exception = when some shard could not be run.
+	 */
+	private void runRandoopSharded(String libFolder, List<String> classNames, final String timeout,
+			final String pathToRandoop, String prefix, int firstSeed) throws Exception {
+		int shards = Math.max(1, Math.min(randoopShards, classNames.size()));
+		List<StringBuilder> lists = new ArrayList<StringBuilder>();
+		for (int i = 0; i < shards; i++) {
+			lists.add(new StringBuilder());
+		}
+		for (int i = 0; i < classNames.size(); i++) {
+			lists.get(i % shards).append(classNames.get(i)).append("\n");
+		}
+		String libList = FileUtil.getListPathPrinted(libFolder, FileUtil.JAR_FILES);
+		List<File> outputDirs = new ArrayList<File>();
+		List<Callable<Integer>> runs = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < shards; i++) {
+			File classes = FileUtil.makeFile(workspace.getRoot() + Constants.FILE_SEPARATOR + prefix + "Classes" + i + ".txt", lists.get(i).toString());
+			File outputDir = new File(workspace.getTests() + Constants.FILE_SEPARATOR + prefix + "Shard" + i);
+			FileUtils.deleteQuietly(outputDir);
+			outputDir.mkdirs();
+			outputDirs.add(outputDir);
+			String className = (i == 0) ? (prefix + "Test") : (prefix + "Shard" + i + "Test");
+			final String command = FileUtil.getCommandToUseRandoop(timeout, pathToRandoop, libList,
+					classes.getAbsolutePath(), outputDir.getAbsolutePath(), className, firstSeed + i, workspace.getSourceBin());
+			runs.add(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					return runRandoopCommand(command, pathToRandoop, timeout);
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(shards);
+		try {
+			for (Future<Integer> f : executor.invokeAll(runs)) {
+				f.get();
 			}
-		}).start();
-		
-		new Thread(new Runnable() {
-			@Override
-			public void run() {
-				String line = null;
-				try {
-					while ((line = be.readLine()) != null) {
-						System.out.println(line);
-					}
-					er.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}		
+		} finally {
+			executor.shutdown();
+		}
+		for (File outputDir : outputDirs) {
+			for (File test : outputDir.listFiles()) {
+				FileUtils.moveFileToDirectory(test, testSource, true);
 			}
-		}).start();
+			FileUtils.deleteQuietly(outputDir);
+		}
+	}
 
+	/**
+	 * Run a command that executes Randoop, showing its output. The process is killed when it runs
+	 * for more than twice the time to tests generation, plus a grace period to start and write the
+	 * tests, or when it uses more CPU time than the limit set.
+	 * @param command = the command that executes Randoop.
+	 * @param pathToRandoop = location of Randoop JAR.
+	 * @param timeout = the time to tests generation given to Randoop.
+	 * @return the exit value of Randoop.
+	 * @throws IOException = bad command interpretation.
+	 * @throws InterruptedException = bad command.
+	 */
+	private int runRandoopCommand(String command, String pathToRandoop, String timeout) throws IOException, InterruptedException {
+		long wallClockLimit = (2 * Long.parseLong(timeout.trim()) + PROCESS_GRACE_PERIOD) * 1000;
+		if(warmRandoop)
+			return runRandoopInWorker(command, pathToRandoop, wallClockLimit);
+		ProcessSupervisor.Result result = processSupervisor.run(ProcessSupervisor.tokenize(command), null,
+				stageLog, wallClockLimit, processCpuLimit * 1000);
+		recordProcess(result, "Randoop");
+		if(result.getExitValue() != 0) {
+			System.out.println("Error reading: " + pathToRandoop + "\n"
+					+ "Java couldn't run Randoop. Verify if command below works."
+					+ "Command Used -> " + command);
+		}
+		return result.getExitValue();
+	}
 
-		int exitVal = proc.waitFor();
+	/**
+	 * Record on the metrics the result of a process run by the supervisor.
+	 * @param result = the result of the process.
+	 * @param tool = the name of the tool run by the process.
+	 */
+	private void recordProcess(ProcessSupervisor.Result result, String tool) {
+		metrics.increment("jmlok_processes_total", 1);
+		metrics.observe("jmlok_process_seconds", result.getWallMillis() / 1000.0);
+		if(result.getCpuMillis() >= 0)
+			metrics.observe("jmlok_process_cpu_seconds", result.getCpuMillis() / 1000.0);
+		if(result.isKilled()) {
+			metrics.increment("jmlok_processes_killed_total", 1);
+			System.out.println(tool + " was killed, it exceeded the " + result.getKilledBy() + " time limit.");
+		}
+		if(result.getExitValue() != 0)
+			metrics.increment("jmlok_processes_failed_total", 1);
+	}
+
+	/**
+	 * Run Randoop on a warm worker JVM, with the class path and the arguments of a command that
+	 * executes Randoop.
+	 * @param command = the command that executes Randoop, built by FileUtil.getCommandToUseRandoop.
+	 * @param pathToRandoop = location of Randoop JAR.
+	 * @param wallClockLimit = the maximum time, in milliseconds, Randoop may run.
+	 * @return the exit value of Randoop.
+	 * @throws IOException When the worker could not be started.
+	 * @throws InterruptedException When interrupted while waiting for the worker.
+	 */
+	private int runRandoopInWorker(String command, String pathToRandoop, long wallClockLimit) throws IOException, InterruptedException {
+		String[] tokens = ProcessSupervisor.tokenize(command);
+		List<String> classpath = new ArrayList<String>();
+		List<String> args = new ArrayList<String>();
+		boolean randoopArgs = false;
+		for (int i = 0; i < tokens.length; i++) {
+			if(randoopArgs){
+				args.add(tokens[i]);
+			}else if(tokens[i].equals("-cp") && i + 1 < tokens.length){
+				for (String entry : tokens[++i].replace("\"", "").split(isWindows ? ";" : ":")) {
+					if(!entry.isEmpty())
+						classpath.add(entry);
+				}
+			}else if(tokens[i].equals("randoop.main.Main")){
+				randoopArgs = true;
+			}
+		}
+		ProcessSupervisor.Result result = RandoopWorkerPool.getShared().run(classpath, args, stageLog,
+				processSupervisor, wallClockLimit, processCpuLimit * 1000);
+		metrics.increment("jmlok_randoop_worker_jobs_total", 1);
+		recordProcess(result, "Randoop");
+		int exitVal = result.getExitValue();
 		if(exitVal != 0) {
 			System.out.println("Error reading: " + pathToRandoop + "\n"
-					+ "Java couldn't run Randoop. Verify if command below works."
-					+ "Command Used -> " + FileUtil.getCommandToUseRandoop(timeout, pathToRandoop, FileUtil.getListPathPrinted(libFolder, FileUtil.JAR_FILES) + pathToRandoop));
+					+ "The Randoop worker couldn't run Randoop. Verify if command below works."
+					+ "Command Used -> " + command);
 		}
+		return exitVal;
 	}
+
+
 	
 	/**
 	 * Method used to do the JML compilation of the files.
@@ -329,38 +1042,225 @@ public class Detect {
 	 * @throws Exception problem with ANT projects.
 	 */
 	public void jmlCompile(String sourceFolder) throws Exception{
-		final StringBuilder buff = new StringBuilder();
-		if(FileUtil.hasDirectories(sourceFolder)){
+		if(jmlCache){
+			jmlCompileWithCache(sourceFolder);
+		}else{
+			jmlCompileAll(sourceFolder);
+		}
+	}
+
+	/**
+	 * Method used to do the JML compilation of all files, with the JML compiler selected.
+	 * @param sourceFolder = the source of files to be compiled.
+	 * @throws Exception problem with ANT projects.
+	 */
+	private void jmlCompileAll(String sourceFolder) throws Exception{
+		if(jmlWorkers > 1){
+			jmlCompileInParallel(sourceFolder, FileUtil.listNames(sourceFolder, "", ".java"));
+		} else if(FileUtil.hasDirectories(sourceFolder)){
 			if(isJMLC){
-				runJMLCompiler(sourceFolder, buff, "jmlcCompiler.xml", isJMLC);
+				runJMLCompiler(sourceFolder, "jmlcCompiler.xml", isJMLC);
 			} else if(isOpenJML){
-				runJMLCompiler(sourceFolder, buff, "openjmlCompiler.xml", isJMLC);
+				runJMLCompiler(sourceFolder, "openjmlCompiler.xml", isJMLC);
 			}
 		} else {
 			if(isJMLC){
-				runJMLCompiler(sourceFolder, buff, "jmlcCompiler2.xml", isJMLC);
+				runJMLCompiler(sourceFolder, "jmlcCompiler2.xml", isJMLC);
 			} else if(isOpenJML){
-				runJMLCompiler(sourceFolder, buff, "openjmlCompiler2.xml", isJMLC);
+				runJMLCompiler(sourceFolder, "openjmlCompiler2.xml", isJMLC);
 			}
 		}
 	}
 
+	/**
+	 * Method used to do the JML compilation using the cache of classes compiled on previous executions.
+	 * Only the classes not found on cache are given to the JML compiler, and then stored on cache.
+	 * @param sourceFolder = the source of files to be compiled.
+	 * @throws Exception problem with ANT projects.
+	 */
+	private void jmlCompileWithCache(String sourceFolder) throws Exception{
+		String compilerHome = (isJMLC) ? Constants.JMLC_LIB : Constants.OPENJML_SRC;
+		JMLCompilationCache cache = new JMLCompilationCache(new File(Constants.JML_CACHE), jmlCacheSize,
+				(isJMLC) ? "jmlc" : "openjml", JMLCompilationCache.getCompilerVersion(compilerHome));
+		List<String> classNames = FileUtil.listNames(sourceFolder, "", ".java");
+		Map<String, String> keys = cache.computeKeys(sourceFolder, classNames,
+				JMLCompilationCache.hashClasspath(getCompilationClasspath((librariesFolder == null) ? "" : librariesFolder)));
+		List<String> missed = new ArrayList<String>();
+		for (String className : classNames) {
+			if(!cache.restore(keys.get(className), jmlBin))
+				missed.add(className);
+		}
+		if(missed.size() == classNames.size()){
+			jmlCompileAll(sourceFolder);
+		}else if(!missed.isEmpty() && jmlWorkers > 1){
+			jmlCompileInParallel(sourceFolder, missed);
+		}else if(!missed.isEmpty()){
+			StringBuilder files = new StringBuilder();
+			for (String className : missed) {
+				files.append("\"").append(sourceFolder).append(Constants.FILE_SEPARATOR)
+					 .append(className.replace('.', File.separatorChar)).append(".java\" ");
+			}
+			String nameFile = (isJMLC) ? "jmlcCompilerFiles.xml" : "openjmlCompilerFiles.xml";
+			runJMLCompiler(sourceFolder, nameFile, isJMLC, files.toString());
+		}
+		for (String className : missed) {
+			cache.store(keys.get(className), className, jmlBin);
+		}
+		cache.evict();
+		metrics.increment("jmlok_jml_cache_hits_total", cache.getHits());
+		metrics.increment("jmlok_jml_cache_misses_total", cache.getMisses());
+		new PrintStream(stageLog, true).println("JML cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses.");
+	}
+
+	/**
+	 * Method used to do the JML compilation of some classes split in groups of whole packages, each group
+	 * compiled at the same time by its own JML compiler into its own directory. The classes compiled by
+	 * the Java compiler are on the classpath of all groups, so a group does not need to compile the
+	 * classes of the other ones. When all groups finish, their classes are merged into the JML bin directory.
+	 * @param sourceFolder = the source of files to be compiled.
+	 * @param classNames = the complete names of the classes to be compiled.
+	 * @throws Exception problems with ANT projects.
+	 */
+	private void jmlCompileInParallel(final String sourceFolder, List<String> classNames) throws Exception{
+		List<Map<String, List<String>>> groups = groupByPackage(classNames, jmlWorkers);
+		File groupsDir = new File(workspace.getRoot(), "jmlGroups");
+		FileUtils.deleteQuietly(groupsDir);
+		final String classpath = javaBin.getAbsolutePath() + File.pathSeparator
+				+ getCompilationClasspath((librariesFolder == null) ? "" : librariesFolder);
+		final String nameFile = (isJMLC) ? "jmlcCompilerGroup.xml" : "openjmlCompilerGroup.xml";
+		final List<File> groupDirs = new ArrayList<File>();
+		List<Callable<Void>> compilations = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < groups.size(); i++) {
+			final File groupDir = new File(groupsDir, "group" + i);
+			groupDir.mkdirs();
+			groupDirs.add(groupDir);
+			final StringBuilder files = new StringBuilder();
+			for (List<String> packageClasses : groups.get(i).values()) {
+				for (String className : packageClasses) {
+					files.append("\"").append(sourceFolder).append(Constants.FILE_SEPARATOR)
+						 .append(className.replace('.', File.separatorChar)).append(".java\" ");
+				}
+			}
+			compilations.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					Metrics.Timer timer = metrics.startTimer("jmlok_jml_group_seconds");
+					Project p = new Project();
+					DefaultLogger consoleLogger = createLogger();
+					File buildFile = setJMLProperties(sourceFolder, nameFile, p);
+					p.setUserProperty("jmlBin", groupDir.getAbsolutePath());
+					p.setUserProperty("classpath", classpath);
+					p.setUserProperty("files", files.toString());
+					if(isJMLC)
+						p.setUserProperty("jmlcExec", (isWindows)?(Constants.JMLC_SRC+"jmlc.bat"):(Constants.JMLC_SRC + "jmlc-unix"));
+					runProject(p, buildFile, nameFile, "jmlc", consoleLogger);
+					timer.stop();
+					return null;
+				}
+			});
+		}
+		if(!compilations.isEmpty()){
+			ExecutorService executor = Executors.newFixedThreadPool(compilations.size());
+			try {
+				for (Future<Void> f : executor.invokeAll(compilations)) {
+					f.get();
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+		for (int i = 0; i < groups.size(); i++) {
+			for (String packageName : groups.get(i).keySet()) {
+				String packagePath = packageName.replace('.', File.separatorChar);
+				File[] compiled = new File(groupDirs.get(i), packagePath).listFiles();
+				if(compiled == null)
+					continue;
+				for (File f : compiled) {
+					if(f.isFile())
+						FileUtils.copyFileToDirectory(f, new File(jmlBin, packagePath));
+				}
+			}
+		}
+		FileUtils.deleteQuietly(groupsDir);
+		metrics.increment("jmlok_jml_groups_total", groups.size());
+	}
+
+	/**
+	 * Split the classes in groups of whole packages, with about the same number of classes each one.
+	 * The larger packages are placed first, each one in the group with less classes at the moment.
+	 * @param classNames = the complete names of the classes.
+	 * @param maxGroups = the maximum number of groups.
+	 * @return the groups, each one with the classes of its packages, by package name.
+	 */
+	private List<Map<String, List<String>>> groupByPackage(List<String> classNames, int maxGroups) {
+		Map<String, List<String>> packages = new TreeMap<String, List<String>>();
+		for (String className : classNames) {
+			className = className.trim();
+			if(className.isEmpty())
+				continue;
+			int dot = className.lastIndexOf('.');
+			String packageName = (dot == -1) ? "" : className.substring(0, dot);
+			List<String> packageClasses = packages.get(packageName);
+			if(packageClasses == null){
+				packageClasses = new ArrayList<String>();
+				packages.put(packageName, packageClasses);
+			}
+			packageClasses.add(className);
+		}
+		List<Map.Entry<String, List<String>>> bySize = new ArrayList<Map.Entry<String, List<String>>>(packages.entrySet());
+		Collections.sort(bySize, new Comparator<Map.Entry<String, List<String>>>() {
+			@Override
+			public int compare(Map.Entry<String, List<String>> a, Map.Entry<String, List<String>> b) {
+				return b.getValue().size() - a.getValue().size();
+			}
+		});
+		List<Map<String, List<String>>> groups = new ArrayList<Map<String, List<String>>>();
+		int[] sizes = new int[Math.min(maxGroups, bySize.size())];
+		for (int i = 0; i < sizes.length; i++) {
+			groups.add(new TreeMap<String, List<String>>());
+		}
+		for (Map.Entry<String, List<String>> e : bySize) {
+			int smallest = 0;
+			for (int i = 1; i < sizes.length; i++) {
+				if(sizes[i] < sizes[smallest])
+					smallest = i;
+			}
+			groups.get(smallest).put(e.getKey(), e.getValue());
+			sizes[smallest] += e.getValue().size();
+		}
+		return groups;
+	}
+
 	/**
 	 * Run respective JML compiler.
 	 * @param sourceFolder = the source of files to be compiled.
-	 * @param buff = where error an log will be printed.
 	 * @param nameFile = name of .xml to be executed.
 	 * @param isJMLC = true if JML compiler used will be jmlc, false, if OpenJML.
 	 * @throws Exception problems with ANT projects.
 	 */
-	private void runJMLCompiler(String sourceFolder, final StringBuilder buff,
+	private void runJMLCompiler(String sourceFolder,
 			String nameFile, boolean isJMLC) throws Exception{
+		runJMLCompiler(sourceFolder, nameFile, isJMLC, null);
+	}
+
+	/**
+	 * Run respective JML compiler over some files.
+	 * @param sourceFolder = the source of files to be compiled.
+	 * @param nameFile = name of .xml to be executed.
+	 * @param isJMLC = true if JML compiler used will be jmlc, false, if OpenJML.
+	 * @param files = the files to be compiled, quoted and separated by spaces, or null if the .xml don't use it.
+	 * @throws Exception problems with ANT projects.
+	 */
+	private void runJMLCompiler(String sourceFolder,
+			String nameFile, boolean isJMLC, String files) throws Exception{
 		Project p = new Project();
-		DefaultLogger consoleLogger = createLogger(buff);
+		DefaultLogger consoleLogger = createLogger();
 		File buildFile = setJMLProperties(sourceFolder, nameFile, p);
+		if(files != null)
+			p.setUserProperty("files", files);
 		if(isJMLC)
 			p.setUserProperty("jmlcExec", (isWindows)?(Constants.JMLC_SRC+"jmlc.bat"):(Constants.JMLC_SRC + "jmlc-unix"));
-		runProject(buff, p, buildFile, nameFile, "jmlc", consoleLogger);
+		runProject(p, buildFile, nameFile, "jmlc", consoleLogger);
 	}
 	
 	/**
@@ -374,7 +1274,7 @@ public class Detect {
 		File buildFile;
 		buildFile = accessFile(nameFile);
 		p.setUserProperty("source_folder", sourceFolder);
-		p.setUserProperty("jmlBin", Constants.JML_BIN);
+		p.setUserProperty("jmlBin", workspace.getJmlBin());
 		return buildFile;
 	}
 	
@@ -384,24 +1284,305 @@ public class Detect {
 	 * @throws Exception problems with ANT project.
 	 */
 	private void runTests(String libFolder) throws Exception{
-		final StringBuilder buff = new StringBuilder();
+		if(testWorkers > 1){
+			runTestsInParallel(libFolder);
+			return;
+		}
 		
 		// Run ant file
 		Project p = new Project();
-		DefaultLogger consoleLogger = createLogger(buff);
+		DefaultLogger consoleLogger = createLogger();
 		File buildFile = accessFile("runTests.xml");
+		setTestProperties(p, libFolder);
+		runProject(p, buildFile, "runTests.xml", "run_tests", consoleLogger);
+	}
+
+	/**
+	 * Method used to run the tests with the JML oracles, split among several JUnit workers, each one
+	 * in its own JVM. The reports of the workers are merged in the test results file.
+	 * @param libFolder = the path to external libraries needed to tests execution.
+	 * @throws Exception problems with ANT projects.
+	 */
+	private void runTestsInParallel(final String libFolder) throws Exception{
+		List<List<String>> partitions = new TestRunnerPool(testWorkers).partition(testBin);
+		File reportsDir = new File(workspace.getTests() + Constants.FILE_SEPARATOR + "reports");
+		FileUtils.deleteQuietly(reportsDir);
+		final List<File> shardDirs = new ArrayList<File>();
+		List<Callable<Void>> runs = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < partitions.size(); i++) {
+			final File shardDir = new File(reportsDir, "shard" + i);
+			shardDir.mkdirs();
+			shardDirs.add(shardDir);
+			final List<String> testClasses = partitions.get(i);
+			runs.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					runTestClasses(libFolder, testClasses, shardDir);
+					return null;
+				}
+			});
+		}
+		if(!runs.isEmpty()){
+			ExecutorService executor = Executors.newFixedThreadPool(runs.size());
+			try {
+				for (Future<Void> f : executor.invokeAll(runs)) {
+					f.get();
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+		List<File> reports = new ArrayList<File>();
+		for (File shardDir : shardDirs) {
+			for (File report : shardDir.listFiles()) {
+				if(report.getName().startsWith("TEST-") && report.getName().endsWith(".xml"))
+					reports.add(report);
+			}
+		}
+		TestRunnerPool.mergeReports(reports, new File(workspace.getTestResults()), "RandoopTest");
+	}
+
+	/**
+	 * Run some test classes in a JUnit worker, in its own JVM.
+	 * @param libFolder = the path to external libraries needed to tests execution.
+	 * @param testClasses = the names of the test classes to be run.
+	 * @param reportsDir = the directory where the XML reports will be written.
+	 * @throws Exception problems with ANT project.
+	 */
+	private void runTestClasses(String libFolder, List<String> testClasses, File reportsDir) throws Exception {
+		StringBuilder includes = new StringBuilder();
+		for (String testClass : testClasses) {
+			includes.append((includes.length() == 0) ? "" : ",").append(testClass).append(".class");
+		}
+		Project p = new Project();
+		DefaultLogger consoleLogger = createLogger();
+		File buildFile = accessFile("runTestsShard.xml");
+		setTestProperties(p, libFolder);
+		p.setUserProperty("tests_includes", includes.toString());
+		p.setUserProperty("reports_dir", reportsDir.getAbsolutePath());
+		runProject(p, buildFile, "runTestsShard.xml", "run_tests", consoleLogger);
+	}
+
+	/**
+	 * Method used to generate and run the tests at the same time. Randoop runs in slices of the time
+	 * to tests generation; the tests of each slice are compiled and run in a batch as soon as they
+	 * appear in the tests directory, while the next slices are generated.
+	 * @param libFolder = the path to external libraries needed to tests generation and execution.
+	 * @param timeout = the time to tests generation.
+	 * @throws Exception When some slice or batch could not be run.
+	 */
+	private void generateAndRunTests(final String libFolder, String timeout) throws Exception{
+		final String pathToRandoop = getRandoopPath();
+		int time = Integer.parseInt(timeout.trim());
+		final int slices = Math.max(1, Math.min(pipelineSlices, time));
+		final String sliceTime = String.valueOf(time / slices);
+		final List<String> classNames = FileUtil.listNames(sourceFolder, "", ".java");
+		if(specAwareGeneration)
+			analyzeContracts();
+		ExecutorService generator = Executors.newSingleThreadExecutor();
+		Future<Void> generation = generator.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				for (int i = 0; i < slices; i++) {
+					if(specAwareGeneration)
+						runRandoopSpecAware(libFolder, sliceTime, pathToRandoop, "RandoopSlice" + i, 2 * i * randoopShards);
+					else
+						runRandoopSharded(libFolder, classNames, sliceTime, pathToRandoop, "RandoopSlice" + i, i * randoopShards);
+				}
+				return null;
+			}
+		});
+		generator.shutdown();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, testWorkers));
+		List<Future<Void>> batches = new ArrayList<Future<Void>>();
+		TestBatchWatcher watcher = new TestBatchWatcher(testSource);
+		try {
+			while (true) {
+				boolean finished = generation.isDone();
+				List<File> tests = watcher.poll(finished);
+				if(!tests.isEmpty()){
+					metrics.increment("jmlok_test_classes_generated_total", tests.size());
+					final List<String> testClasses = compileTestBatch(libFolder, tests);
+					final int batch = batches.size() + 1;
+					batches.add(executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							Metrics.Timer timer = metrics.startTimer("jmlok_test_batch_seconds");
+							runTestClasses(libFolder, testClasses, testSource);
+							timer.stop();
+							triggersBatchEvent(batch, testClasses);
+							return null;
+						}
+					}));
+				}else if(finished){
+					break;
+				}else{
+					Thread.sleep(PIPELINE_POLL_INTERVAL);
+				}
+			}
+			generation.get();
+			for (Future<Void> f : batches) {
+				f.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Method used to generate and run the tests in rounds, each class of the SUT tested by Randoop alone
+	 * during its own slice of time. After each round, the tests are compiled and run, and the new distinct
+	 * nonconformances revealed by the tests of each class decide the time of the class on the next round
+	 * (see GenerationScheduler). The budget is the time to tests generation of each Randoop process, and
+	 * the time spent by class is written to the generation budget report of the workspace.
+	 * @param libFolder = the path to external libraries needed to tests generation and execution.
+	 * @param timeout = the time to tests generation.
+	 * @throws Exception When some round could not be run.
+	 */
+	private void generateTestsAdaptively(String libFolder, String timeout) throws Exception{
+		final String pathToRandoop = getRandoopPath();
+		List<String> classNames;
+		if(specAwareGeneration){
+			analyzeContracts();
+			classNames = generationClasses;
+		}else{
+			classNames = FileUtil.listNames(sourceFolder, "", ".java");
+		}
+		int processes = Math.max(1, randoopShards);
+		GenerationScheduler scheduler = new GenerationScheduler(classNames, Long.parseLong(timeout.trim()) * processes,
+				adaptiveRoundTime * processes, ADAPTIVE_MIN_SLICE, ADAPTIVE_PATIENCE);
+		String libList = FileUtil.getListPathPrinted(libFolder, FileUtil.JAR_FILES);
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		for (int i = 0; i < classNames.size(); i++) {
+			indexes.put(classNames.get(i), i);
+			FileUtil.makeFile(workspace.getRoot() + Constants.FILE_SEPARATOR + "RandoopClass" + i + ".txt", classNames.get(i) + "\n");
+		}
+		int compiler = (isJMLC) ? Constants.JMLC_COMPILER : Constants.OPENJML_COMPILER;
+		Set<TestError> revealed = new HashSet<TestError>();
+		TestBatchWatcher watcher = new TestBatchWatcher(testSource);
+		Map<String, Integer> slices;
+		while (!(slices = scheduler.nextRound()).isEmpty()) {
+			int round = scheduler.getRound();
+			Map<String, String> owners = new HashMap<String, String>();
+			List<Callable<Integer>> runs = new ArrayList<Callable<Integer>>();
+			for (Map.Entry<String, Integer> e : slices.entrySet()) {
+				int index = indexes.get(e.getKey());
+				String testClassName = "RandoopR" + round + "C" + index + "Test";
+				owners.put(testClassName, e.getKey());
+				final String sliceTime = String.valueOf(e.getValue());
+				final String command = FileUtil.getCommandToUseRandoop(sliceTime, pathToRandoop, libList,
+						workspace.getRoot() + Constants.FILE_SEPARATOR + "RandoopClass" + index + ".txt",
+						testSource.getAbsolutePath(), testClassName, round * classNames.size() + index, workspace.getSourceBin());
+				runs.add(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						return runRandoopCommand(command, pathToRandoop, sliceTime);
+					}
+				});
+			}
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(processes, runs.size()));
+			try {
+				for (Future<Integer> f : executor.invokeAll(runs)) {
+					f.get();
+				}
+			} finally {
+				executor.shutdown();
+			}
+			Map<String, List<File>> reports = new HashMap<String, List<File>>();
+			List<File> tests = watcher.poll(true);
+			if(!tests.isEmpty()){
+				metrics.increment("jmlok_test_classes_generated_total", tests.size());
+				List<String> testClasses = compileTestBatch(libFolder, tests);
+				runTestClasses(libFolder, testClasses, testSource);
+				for (String testClass : testClasses) {
+					String owner = owners.get(testClass.replaceAll("\\d+$", ""));
+					File report = new File(testSource, "TEST-" + testClass + ".xml");
+					if(owner == null || !report.isFile())
+						continue;
+					if(!reports.containsKey(owner))
+						reports.put(owner, new ArrayList<File>());
+					reports.get(owner).add(report);
+				}
+				triggersBatchEvent(round, testClasses);
+			}
+			for (Map.Entry<String, Integer> e : slices.entrySet()) {
+				int found = 0;
+				if(reports.containsKey(e.getKey())){
+					for (TestError te : new ResultProducer(workspace).listErrors(compiler, reports.get(e.getKey()))) {
+						if(revealed.add(te))
+							found++;
+					}
+				}
+				scheduler.record(e.getKey(), e.getValue(), found);
+			}
+		}
+		FileUtil.makeFile(workspace.getGenerationBudget(), scheduler.getReport());
+		for (String className : classNames) {
+			metrics.increment("jmlok_generation_budget_seconds{class=\"" + className + "\"}", scheduler.getSpent(className));
+		}
+		System.out.print(scheduler.getRound() + " rounds, " + scheduler.getSpent() + " seconds of generation spent. ");
+	}
+
+	/**
+	 * Compile a batch of tests generated by Randoop. Only the files of the batch are given to the compiler,
+	 * the test classes of the batches before it being on the test bin directory already.
+	 * @param libFolder = the path to external libraries needed to tests compilation.
+	 * @param tests = the test files of the batch.
+	 * @return the names of the test classes compiled.
+	 * @throws Exception When the tests could not be compiled.
+	 */
+	private List<String> compileTestBatch(String libFolder, List<File> tests) throws Exception {
+		if(inProcessCompilation && JavaCompilation.isAvailable()){
+			JavaCompilation compilation = new JavaCompilation();
+			boolean success = compilation.compile(tests, workspace.getTestBin(),
+					workspace.getSourceBin() + File.pathSeparator + getCompilationClasspath(libFolder), "");
+			for (Diagnostic<? extends JavaFileObject> d : compilation.getDiagnostics()) {
+				System.out.println(JavaCompilation.format(d));
+			}
+			if(!success){
+				throw new Exception("Compile failed; " + compilation.getErrorCount() + " error(s) reported by the compiler.");
+			}
+		}else{
+			Project p = new Project();
+			DefaultLogger consoleLogger = createLogger();
+			File buildFile = accessFile("generateTests.xml");
+			p.setUserProperty("source_bin", workspace.getSourceBin());
+			p.setUserProperty("tests_src", workspace.getTestDir());
+			p.setUserProperty("tests_bin", workspace.getTestBin());
+			p.setUserProperty("lib", libFolder);
+			p.setUserProperty("jmlLib", jmlLib);
+			// Only the files of the batch, so each batch does not compile again the tests of the batches before it.
+			StringBuilder includes = new StringBuilder();
+			for (File test : tests) {
+				includes.append((includes.length() == 0) ? "" : ",").append(test.getName());
+			}
+			p.setUserProperty("tests_includes", includes.toString());
+			runProject(p, buildFile, "generateTests.xml", "compile_tests", consoleLogger);
+		}
+		List<String> testClasses = new ArrayList<String>();
+		for (File test : tests) {
+			testClasses.add(test.getName().substring(0, test.getName().length() - ".java".length()));
+		}
+		return testClasses;
+	}
+
+	/**
+	 * Set common properties to run the tests.
+	 * @param p = project to be run.
+	 * @param libFolder = the path to external libraries needed to tests execution.
+	 */
+	private void setTestProperties(Project p, String libFolder) {
 		p.setUserProperty("lib", libFolder);
-		p.setUserProperty("jmlBin", Constants.JML_BIN);
+		p.setUserProperty("jmlBin", workspace.getJmlBin());
 		if(isJMLC) p.setUserProperty("jmlCompiler", Constants.JMLC_SRC);
 		else if(isOpenJML) p.setUserProperty("jmlCompiler", Constants.OPENJML_SRC);
-		p.setUserProperty("tests_src", Constants.TEST_DIR);
-		p.setUserProperty("tests_bin", Constants.TEST_BIN);
-		runProject(buff, p, buildFile, "runTests.xml", "run_tests", consoleLogger);
+		p.setUserProperty("tests_src", workspace.getTestDir());
+		p.setUserProperty("tests_bin", workspace.getTestBin());
 	}
 	
 	/**
-	 * Run specify ANT project.
-	 * @param buff = where log will be printed.
+	 * Run specify ANT project. Its output is written, as it is produced, to the log of the current stage.
+	 * The external processes of the project are killed when they exceed the process timeout.
 	 * @param p = project to be run.
 	 * @param buildFile = buildFile to be parsed.
 	 * @param nameFile = name of .xml to be executed.
@@ -409,15 +1590,17 @@ public class Detect {
 	 * @param consoleLogger = logger who will print error and info about ANT execution.
 	 * @throws Exception parsing or executing ANT problems.
 	 */
-	private void runProject(final StringBuilder buff, Project p, File buildFile, String nameFile, String targetName, DefaultLogger consoleLogger) throws Exception {
+	private void runProject(Project p, File buildFile, String nameFile, String targetName, DefaultLogger consoleLogger) throws Exception {
 		p.addBuildListener(consoleLogger);
+		// The time limit of the <exec> and <junit> tasks, in milliseconds; ANT does not accept 0 as no limit.
+		p.setUserProperty("process_timeout", String.valueOf((processTimeout > 0)
+				? Math.min(processTimeout * 1000, Integer.MAX_VALUE) : Integer.MAX_VALUE));
 		p.init();
 		ProjectHelper helper = ProjectHelper.getProjectHelper();
 		p.addReference("ant.projectHelper", helper);		
 		try {
 			helper.parse(p, buildFile);			
 		} catch (Exception e) {
-			System.out.println(buff.toString());
 			throw new Exception("Error while trying to parse file "
 					+ "ant" + Constants.FILE_SEPARATOR + nameFile
 					+ " Running directory: " + getJARPath());
@@ -425,32 +1608,25 @@ public class Detect {
 		try {
 			p.executeTarget(targetName);			
 		} catch (Exception e) {
-			System.out.println(buff.toString());
 			throw new Exception(e.getMessage());
+		} finally {
+			stageLog.flush();
 		}
-		System.out.println(buff.toString());
 	}
 	
 	/**
-	 * Defines an Logger to transmit info about ANT execution to an StringBuffer.
-	 * @param buff buffer that will receive info about ANT execution.
-	 * @return Logger to transmit info about ANT execution to an StringBuffer.
+	 * Defines an Logger to transmit info about ANT execution to the log of the current stage.
+	 * @return Logger to transmit info about ANT execution to the log of the current stage.
 	 */
-	private DefaultLogger createLogger(final StringBuilder buff) {
+	private DefaultLogger createLogger() {
 		DefaultLogger consoleLogger = new DefaultLogger();
-		consoleLogger.setErrorPrintStream(new PrintStream(new OutputStream() {  
-            public void write(int b) throws IOException {                
-                buff.append(String.valueOf((char) b));  
-            }
-            }));
-		consoleLogger.setOutputPrintStream(new PrintStream(new OutputStream() {  
-	           public void write(int b) throws IOException {  
-	               buff.append(String.valueOf((char) b));  
-	           }  
-	           }));
+		PrintStream out = new PrintStream(stageLog);
+		consoleLogger.setErrorPrintStream(out);
+		consoleLogger.setOutputPrintStream(out);
 		consoleLogger.setMessageOutputLevel(Project.MSG_INFO);
 		return consoleLogger;
 	}
+
 	
 	/**
 	 * Access ant file to be run.
@@ -486,37 +1662,6 @@ public class Detect {
 		return path.getParent().toString();
 	}
 	
-	/**
-	 * Get time of running some stage.
-	 * @return time of running some stage.
-	 */
-	public long getStartTime() {
-		return startTime;
-	}
-
-	/**
-	 * Set time of running some stage.
-	 * @param startTime time of running some stage.
-	 */
-	public void setStartTime(long startTime) {
-		this.startTime = startTime;
-	}
-	
-	/**
-	 * Count time between stages, take value of stage duration, reset timer, and inform value.
-	 * @return value of timer.
-	 */
-	private long countTime(){
-		if(getStartTime() == 0){
-			setStartTime(System.currentTimeMillis());
-			return getStartTime();
-		}else{
-			long s = getStartTime();
-			setStartTime(System.currentTimeMillis());
-			return getStartTime() - s;
-		}
-	}
-	
 	/**
 	 * Trigger event to be detected by all listeners of Detect.
 	 * @param stage stage of execution of Detection phase.
@@ -540,6 +1685,10 @@ public class Detect {
 			case EXECUTED_TESTS:
 				l.detectExecutedTests(e);
 				break;
+			case GENERATED_AND_EXECUTED_TESTS:
+				l.detectGeneratedTestsWithRandoop(e);
+				l.detectExecutedTests(e);
+				break;
 			case ERROR_ON_DETECTION:
 				l.detectErrorOnGeneratingTests(e);
 				break;
@@ -547,6 +1696,18 @@ public class Detect {
 		}
 	}
 	
+	/**
+	 * Trigger event of a batch of tests executed, on pipelined detection, to all listeners of Detect.
+	 * @param batch number of the batch.
+	 * @param testClasses test classes of the batch.
+	 */
+	private synchronized void triggersBatchEvent(int batch, List<String> testClasses){
+		DetectEvent e = new DetectEvent(this, batch, testClasses);
+		for (DetectListener l : detectListeners) {
+			l.detectExecutedTestsBatch(e);
+		}
+	}
+	
 	public synchronized void addDetectListener(DetectListener l) {  
         if(!detectListeners.contains(l)) {  
             detectListeners.add(l);  
@@ -1,5 +1,8 @@
 package detect;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Event class used to define events thrown by Detect.
  * @author Alysson Milanez and Dennis Sousa.
@@ -11,9 +14,39 @@ public class DetectEvent extends java.util.EventObject {
 	 * Event for Detect monitoring stages.
 	 */
 	private static final long serialVersionUID = 1L;
+	private int batch;
+	private List<String> testClasses;
 
 	public DetectEvent(Detect source) {
+		this(source, 0, new ArrayList<String>());
+	}
+
+	/**
+	 * Event for a batch of tests executed, on pipelined detection.
+	 * @param source the Detect that executed the batch.
+	 * @param batch the number of the batch, starting on 1.
+	 * @param testClasses the test classes of the batch.
+	 */
+	public DetectEvent(Detect source, int batch, List<String> testClasses) {
 		super(source);
+		this.batch = batch;
+		this.testClasses = testClasses;
+	}
+
+	/**
+	 * Get the number of the batch of tests executed, or 0 if the event is not about a batch.
+	 * @return the number of the batch.
+	 */
+	public int getBatch() {
+		return batch;
+	}
+
+	/**
+	 * Get the test classes of the batch of tests executed.
+	 * @return the test classes of the batch.
+	 */
+	public List<String> getTestClasses() {
+		return testClasses;
 	}
 
 }
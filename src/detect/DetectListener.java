@@ -12,6 +12,7 @@ public interface DetectListener extends java.util.EventListener{
 	void detectCompiledProjectWithJML(DetectEvent e);
 	void detectGeneratedTestsWithRandoop(DetectEvent e);
 	void detectExecutedTests(DetectEvent e);
+	void detectExecutedTestsBatch(DetectEvent e);
 	
 	void detectErrorOnGeneratingTests(DetectEvent e);
 	
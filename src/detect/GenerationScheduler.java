@@ -0,0 +1,182 @@
+package detect;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class used to split the time to tests generation among the classes of the SUT, in rounds. On the first
+ * rounds each class receives a short slice; on the next ones the time of the round is split in proportion
+ * to the rate of new nonconformances each class revealed on its last slice. A class that reveals no new
+ * nonconformance during some rounds in a row is taken as saturated and receives no more time, and the
+ * generation ends when the budget is spent or when all classes are saturated.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class GenerationScheduler {
+
+	/**
+	 * Bonus added to the number of new nonconformances of a class, so a class that revealed none on its
+	 * last slice, but is not saturated, still receives part of the time of the round.
+	 */
+	private static final double EXPLORATION_BONUS = 0.25;
+
+	private long budget;
+	private long spent = 0;
+	private int minSlice;
+	private int roundBudget;
+	private int patience;
+	private int round = 0;
+	private Map<String, ClassBudget> classes = new LinkedHashMap<String, ClassBudget>();
+
+	/**
+	 * Class that keeps the time spent on a class and what it revealed.
+	 */
+	private static class ClassBudget {
+		private long spent = 0;
+		private int rounds = 0;
+		private int found = 0;
+		private int lastFound = 0;
+		private int lastSlice = 0;
+		private int idleRounds = 0;
+		private boolean saturated = false;
+	}
+
+	/**
+	 * The constructor of this class.
+	 * @param classNames = the classes to be tested, the first ones are explored first.
+	 * @param budget = the time to tests generation of all classes, in seconds.
+	 * @param roundBudget = the time split among the classes on each round, in seconds.
+	 * @param minSlice = the shortest time given to a class on a round, in seconds.
+	 * @param patience = the number of rounds in a row without new nonconformances that saturates a class.
+	 */
+	public GenerationScheduler(List<String> classNames, long budget, int roundBudget, int minSlice, int patience) {
+		this.budget = budget;
+		this.minSlice = Math.max(1, minSlice);
+		this.roundBudget = Math.max(roundBudget, this.minSlice);
+		this.patience = Math.max(1, patience);
+		for (String className : classNames) {
+			classes.put(className, new ClassBudget());
+		}
+	}
+
+	/**
+	 * Method that returns the time of each class on the next round. The classes never explored receive the
+	 * shortest slice first; when all were explored, each class not saturated receives the shortest slice and
+	 * the rest of the time of the round is split by the rate of new nonconformances of these classes. So a
+	 * round takes no more than the round budget, unless there are more classes not saturated than shortest
+	 * slices in the round budget; then each class still receives the shortest slice.
+	 * @return - the time, in seconds, of each class on the next round; empty when the generation is over.
+	 */
+	public Map<String, Integer> nextRound() {
+		Map<String, Integer> slices = new LinkedHashMap<String, Integer>();
+		long remaining = budget - spent;
+		for (Map.Entry<String, ClassBudget> e : classes.entrySet()) {
+			if(e.getValue().rounds == 0 && remaining >= minSlice){
+				slices.put(e.getKey(), minSlice);
+				remaining -= minSlice;
+			}
+		}
+		if(!slices.isEmpty()){
+			round++;
+			return slices;
+		}
+		if(remaining < minSlice)
+			return slices;
+		double total = 0;
+		int active = 0;
+		for (ClassBudget c : classes.values()) {
+			if(!c.saturated){
+				total += getScore(c);
+				active++;
+			}
+		}
+		long extra = Math.max(0, Math.min(remaining, roundBudget) - (long) active * minSlice);
+		for (Map.Entry<String, ClassBudget> e : classes.entrySet()) {
+			ClassBudget c = e.getValue();
+			if(c.saturated || c.rounds == 0 || remaining < minSlice)
+				continue;
+			int slice = minSlice + (int) Math.floor(extra * getScore(c) / total);
+			slice = (int) Math.min(slice, remaining);
+			slices.put(e.getKey(), slice);
+			remaining -= slice;
+		}
+		if(!slices.isEmpty())
+			round++;
+		return slices;
+	}
+
+	/**
+	 * Rate of new nonconformances of a class on its last slice, by second.
+	 */
+	private double getScore(ClassBudget c) {
+		return (c.lastFound + EXPLORATION_BONUS) / Math.max(1, c.lastSlice);
+	}
+
+	/**
+	 * Method used to record the result of the slice of a class on the current round.
+	 * @param className = the class tested.
+	 * @param slice = the time given to the class, in seconds.
+	 * @param newNonconformances = the number of distinct nonconformances revealed by the tests of the
+	 * class that were not revealed before.
+	 */
+	public void record(String className, int slice, int newNonconformances) {
+		ClassBudget c = classes.get(className);
+		if(c == null)
+			return;
+		c.spent += slice;
+		c.rounds++;
+		c.found += newNonconformances;
+		c.lastFound = newNonconformances;
+		c.lastSlice = slice;
+		spent += slice;
+		if(newNonconformances > 0){
+			c.idleRounds = 0;
+		}else if(++c.idleRounds >= patience){
+			c.saturated = true;
+		}
+	}
+
+	/**
+	 * Method that returns the number of rounds given by nextRound.
+	 * @return - the number of the current round.
+	 */
+	public int getRound() {
+		return round;
+	}
+
+	/**
+	 * Method that returns the time spent on all classes.
+	 * @return - the time spent, in seconds.
+	 */
+	public long getSpent() {
+		return spent;
+	}
+
+	/**
+	 * Method that returns the time spent on a class.
+	 * @param className = the class tested.
+	 * @return - the time spent, in seconds.
+	 */
+	public long getSpent(String className) {
+		ClassBudget c = classes.get(className);
+		return (c == null) ? 0 : c.spent;
+	}
+
+	/**
+	 * Method that returns the report of the budget: for each class, the time spent, the rounds it was
+	 * tested, the new nonconformances revealed and if it was saturated.
+	 * @return - the report, one line by class.
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append("# budget=").append(budget).append("s spent=").append(spent).append("s rounds=").append(round).append('\n');
+		report.append("# class;seconds;rounds;nonconformances;saturated\n");
+		for (Map.Entry<String, ClassBudget> e : classes.entrySet()) {
+			ClassBudget c = e.getValue();
+			report.append(e.getKey()).append(';').append(c.spent).append(';').append(c.rounds).append(';')
+				.append(c.found).append(';').append(c.saturated).append('\n');
+		}
+		return report.toString();
+	}
+}
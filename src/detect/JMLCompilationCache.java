@@ -0,0 +1,373 @@
+package detect;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+
+import utils.Constants;
+import utils.FileUtil;
+
+/**
+ * Class used to keep the classes compiled by a JML compiler between executions of the tool. Each entry
+ * is addressed by the content of the class source, of its .jml file and of the project classes it
+ * references directly or transitively (where its inherited specifications come from), by the JML compiler
+ * used and by the libraries of the project.
+ * The entries least recently used are evicted when the cache exceeds its maximum size. The cache directory
+ * may be shared by several executions, in this or in other processes, so the entries are only read,
+ * written or removed while a lock on the directory is held.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class JMLCompilationCache {
+
+	private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+	private static final String LOCK_FILE = ".lock";
+	private static final String TEMP_SUFFIX = ".tmp";
+	// A file lock is held for the whole process, so the executions of this process also lock among themselves.
+	private static final ReentrantLock LOCAL_LOCK = new ReentrantLock();
+	private File cacheDir;
+	private long maxSize;
+	private String compilerId;
+	private String compilerVersion;
+	private int hits;
+	private int misses;
+
+	/**
+	 * The constructor of this class, creates the cache directory if it does not exist.
+	 * @param cacheDir = the directory where the entries are kept.
+	 * @param maxSize = the maximum size of the cache, in bytes.
+	 * @param compilerId = the name of the JML compiler used.
+	 * @param compilerVersion = the version of the JML compiler used.
+	 */
+	public JMLCompilationCache(File cacheDir, long maxSize, String compilerId, String compilerVersion) {
+		this.cacheDir = cacheDir;
+		this.maxSize = maxSize;
+		this.compilerId = compilerId;
+		this.compilerVersion = compilerVersion;
+		while (!cacheDir.exists()) {
+			cacheDir.mkdirs();
+		}
+	}
+
+	/**
+	 * Method that returns a version of a JML compiler, made from the jars found in its installation directory.
+	 * @param compilerHome = the installation directory of the JML compiler.
+	 * @return - the version of the compiler, that changes when some of its jars changes.
+	 */
+	public static String getCompilerVersion(String compilerHome) {
+		if (compilerHome == null || !new File(compilerHome).isDirectory())
+			return "unknown";
+		StringBuilder sb = new StringBuilder();
+		for (File jar : FileUtil.listFiles(compilerHome, ".jar")) {
+			sb.append(jar.getName()).append(':').append(jar.length()).append(':').append(jar.lastModified()).append('\n');
+		}
+		return FileUtil.hashString(sb.toString());
+	}
+
+	/**
+	 * Method used to calculate the key of each class of the project. The JML compiler takes into the code of
+	 * a class the specifications of its supertypes, and of their supertypes, so the key of a class covers the
+	 * .java and .jml files of all project classes it references, directly or through other project classes,
+	 * from its .java or .jml files. The key also covers the compiler and the libraries of the project.
+	 * @param sourceFolder = the folder of the source files.
+	 * @param classNames = the complete names of the classes of the project.
+	 * @param librariesHash = the hash of the libraries on the classpath of the compilation (see hashClasspath).
+	 * @return - the key of each class, indexed by the class name.
+	 * @throws IOException When some source file cannot be read.
+	 */
+	public Map<String, String> computeKeys(String sourceFolder, List<String> classNames, String librariesHash) throws IOException {
+		Map<String, String> contentHashes = new HashMap<String, String>();
+		Map<String, List<String>> bySimpleName = new HashMap<String, List<String>>();
+		for (String className : classNames) {
+			File java = getSourceFile(sourceFolder, className, ".java");
+			File jml = getSourceFile(sourceFolder, className, ".jml");
+			contentHashes.put(className, FileUtil.hashFile(java) + ":" + (jml.exists() ? FileUtil.hashFile(jml) : ""));
+			String simpleName = className.substring(className.lastIndexOf('.') + 1);
+			if (!bySimpleName.containsKey(simpleName))
+				bySimpleName.put(simpleName, new ArrayList<String>());
+			bySimpleName.get(simpleName).add(className);
+		}
+		Map<String, Set<String>> references = new HashMap<String, Set<String>>();
+		for (String className : classNames) {
+			Set<String> referenced = new HashSet<String>();
+			for (String extension : new String[] {".java", ".jml"}) {
+				File f = getSourceFile(sourceFolder, className, extension);
+				if (!f.exists())
+					continue;
+				Matcher m = IDENTIFIER.matcher(new String(Files.readAllBytes(f.toPath())));
+				while (m.find()) {
+					List<String> classes = bySimpleName.get(m.group());
+					if (classes != null)
+						referenced.addAll(classes);
+				}
+			}
+			references.put(className, referenced);
+		}
+		Map<String, String> keys = new HashMap<String, String>();
+		for (String className : classNames) {
+			Set<String> closure = new TreeSet<String>();
+			LinkedList<String> pending = new LinkedList<String>(references.get(className));
+			while (!pending.isEmpty()) {
+				String r = pending.removeFirst();
+				if (closure.add(r))
+					pending.addAll(references.get(r));
+			}
+			closure.remove(className);
+			StringBuilder sb = new StringBuilder();
+			sb.append(compilerId).append('\n').append(compilerVersion).append('\n').append(librariesHash).append('\n');
+			sb.append(className).append('=').append(contentHashes.get(className)).append('\n');
+			for (String r : closure) {
+				sb.append(r).append('=').append(contentHashes.get(r)).append('\n');
+			}
+			keys.put(className, FileUtil.hashString(sb.toString()));
+		}
+		return keys;
+	}
+
+	/**
+	 * Method that returns a hash of the content of the entries of a classpath. The jars are hashed by their
+	 * content; the directories by the names, sizes and modification times of their files.
+	 * @param classpath = the classpath, separated by the path separator of the system.
+	 * @return - the hash of the classpath.
+	 * @throws IOException When some jar cannot be read.
+	 */
+	public static String hashClasspath(String classpath) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (String entry : classpath.split(File.pathSeparator)) {
+			File f = new File(entry);
+			if (entry.isEmpty() || !f.exists())
+				continue;
+			sb.append(entry).append('=');
+			if (f.isFile()) {
+				sb.append(FileUtil.hashFile(f));
+			} else {
+				List<File> files = new ArrayList<File>(FileUtils.listFiles(f, null, true));
+				Collections.sort(files);
+				for (File c : files) {
+					sb.append(c.getPath()).append(':').append(c.length()).append(':').append(c.lastModified()).append(';');
+				}
+			}
+			sb.append('\n');
+		}
+		return FileUtil.hashString(sb.toString());
+	}
+
+	/**
+	 * Method used to restore the compiled classes of an entry into the JML bin directory. An entry that
+	 * cannot be copied is taken as not found, and the classes already copied from it are removed.
+	 * @param key = the key of the entry.
+	 * @param jmlBin = the directory of the classes compiled with JML.
+	 * @return - true if the entry was found and restored.
+	 * @throws IOException When the cache directory cannot be locked.
+	 */
+	public boolean restore(String key, File jmlBin) throws IOException {
+		File entry = new File(cacheDir, key);
+		FileChannel lock = lock();
+		try {
+			if (entry.isDirectory()) {
+				try {
+					FileUtils.copyDirectory(entry, jmlBin);
+					entry.setLastModified(System.currentTimeMillis());
+					hits++;
+					return true;
+				} catch (IOException e) {
+					removeCopy(entry, jmlBin);
+				}
+			}
+			misses++;
+			return false;
+		} finally {
+			unlock(lock);
+		}
+	}
+
+	/**
+	 * Remove from the JML bin directory the files copied from an entry.
+	 */
+	private void removeCopy(File entry, File jmlBin) {
+		String base = entry.getAbsolutePath() + File.separator;
+		for (File f : FileUtils.listFiles(entry, null, true)) {
+			FileUtils.deleteQuietly(new File(jmlBin, f.getAbsolutePath().substring(base.length())));
+		}
+	}
+
+	/**
+	 * Method used to store the compiled classes of a class, and its inner classes, as a new entry.
+	 * @param key = the key of the entry.
+	 * @param className = the complete name of the class.
+	 * @param jmlBin = the directory of the classes compiled with JML.
+	 * @throws IOException When the classes cannot be copied, or the cache directory cannot be locked.
+	 */
+	public void store(String key, String className, File jmlBin) throws IOException {
+		FileChannel lock = lock();
+		try {
+			store(new File(cacheDir, key), className, jmlBin);
+		} finally {
+			unlock(lock);
+		}
+	}
+
+	/**
+	 * Store the compiled classes of a class as an entry, while the lock on the cache directory is held.
+	 */
+	private void store(File entry, String className, File jmlBin) throws IOException {
+		if (entry.exists())
+			return;
+		int dot = className.lastIndexOf('.');
+		String packagePath = (dot == -1) ? "" : className.substring(0, dot).replace('.', File.separatorChar);
+		String simpleName = className.substring(dot + 1);
+		File[] compiled = new File(jmlBin, packagePath).listFiles();
+		if (compiled == null)
+			return;
+		// Entries are written under a temporary name, so an execution killed while writing leaves no incomplete entry.
+		File temp = new File(cacheDir, entry.getName() + TEMP_SUFFIX + System.nanoTime());
+		File target = new File(temp, packagePath);
+		boolean found = false;
+		for (File f : compiled) {
+			if (f.isFile() && (f.getName().equals(simpleName + ".class") || f.getName().startsWith(simpleName + "$"))) {
+				FileUtils.copyFileToDirectory(f, target);
+				found = true;
+			}
+		}
+		if (!found) {
+			FileUtils.deleteQuietly(temp);
+			return;
+		}
+		try {
+			Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			FileUtils.deleteQuietly(temp);
+		}
+	}
+
+	/**
+	 * Method used to remove the entries least recently used, until the cache respects its maximum size.
+	 * The entries being written by a store are not removed.
+	 * @throws IOException When the cache directory cannot be locked.
+	 */
+	public void evict() throws IOException {
+		FileChannel lock = lock();
+		try {
+			File[] entries = cacheDir.listFiles();
+			if (entries == null)
+				return;
+			List<File> list = new ArrayList<File>();
+			final Map<File, Long> lastUse = new HashMap<File, Long>();
+			final Map<File, Long> sizes = new HashMap<File, Long>();
+			long total = 0;
+			for (File entry : entries) {
+				if (entry.getName().equals(LOCK_FILE) || entry.getName().contains(TEMP_SUFFIX))
+					continue;
+				list.add(entry);
+				lastUse.put(entry, entry.lastModified());
+				sizes.put(entry, sizeOf(entry));
+				total += sizes.get(entry);
+			}
+			Collections.sort(list, new Comparator<File>() {
+				@Override
+				public int compare(File a, File b) {
+					return Long.compare(lastUse.get(a), lastUse.get(b));
+				}
+			});
+			for (int i = 0; i < list.size() && total > maxSize; i++) {
+				if (FileUtils.deleteQuietly(list.get(i)))
+					total -= sizes.get(list.get(i));
+			}
+		} finally {
+			unlock(lock);
+		}
+	}
+
+	/**
+	 * Return the size of an entry, or 0 if it was removed by other tool outside the lock.
+	 */
+	private long sizeOf(File entry) {
+		try {
+			return FileUtils.sizeOf(entry);
+		} catch (IllegalArgumentException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Take the lock on the cache directory, waiting while other execution holds it.
+	 * @return - the channel of the lock file, to be given to unlock.
+	 * @throws IOException When the lock file cannot be opened or locked.
+	 */
+	private FileChannel lock() throws IOException {
+		LOCAL_LOCK.lock();
+		try {
+			FileChannel channel = FileChannel.open(new File(cacheDir, LOCK_FILE).toPath(),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			try {
+				channel.lock();
+				return channel;
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			LOCAL_LOCK.unlock();
+			throw e;
+		}
+	}
+
+	/**
+	 * Release the lock taken by lock.
+	 * @param channel = the channel of the lock file.
+	 */
+	private void unlock(FileChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// Closing the channel releases the lock even when it fails.
+		} finally {
+			LOCAL_LOCK.unlock();
+		}
+	}
+
+	/**
+	 * Method that returns the number of classes restored from the cache.
+	 * @return - the number of hits.
+	 */
+	public int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Method that returns the number of classes not found on the cache.
+	 * @return - the number of misses.
+	 */
+	public int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Method that returns the source file of a class.
+	 * @param sourceFolder = the folder of the source files.
+	 * @param className = the complete name of the class.
+	 * @param extension = the extension of the file, .java or .jml.
+	 * @return - the source file of the class.
+	 */
+	private File getSourceFile(String sourceFolder, String className, String extension) {
+		return new File(sourceFolder + Constants.FILE_SEPARATOR + className.replace('.', File.separatorChar) + extension);
+	}
+}
@@ -0,0 +1,121 @@
+package detect;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Class used to compile Java files inside the JVM running JMLOK, using the javax.tools API,
+ * instead of forking a new JVM through ANT.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class JavaCompilation {
+
+	private JavaCompiler compiler;
+	private DiagnosticCollector<JavaFileObject> diagnostics;
+	private int filesCompiled;
+
+	/**
+	 * The constructor of this class, takes the system Java compiler.
+	 */
+	public JavaCompilation() {
+		this.compiler = ToolProvider.getSystemJavaCompiler();
+		this.diagnostics = new DiagnosticCollector<JavaFileObject>();
+		this.filesCompiled = 0;
+	}
+
+	/**
+	 * Method that informs if there is a Java compiler available on the running JVM (there is none when
+	 * JMLOK was started from a JRE).
+	 * @return - true if the in-process compilation can be used.
+	 */
+	public static boolean isAvailable() {
+		return ToolProvider.getSystemJavaCompiler() != null;
+	}
+
+	/**
+	 * Method used to compile the files received as parameter.
+	 * @param sources = the .java files to be compiled.
+	 * @param destination = the directory where the .class files will be written.
+	 * @param classpath = the classpath used on compilation, separated by the path separator of the system.
+	 * @param sourcepath = the folder where other sources needed on compilation can be found, or empty.
+	 * @return - true if the compilation finished without errors.
+	 * @throws IOException When the file manager cannot be used.
+	 */
+	public boolean compile(List<File> sources, String destination, String classpath, String sourcepath) throws IOException {
+		if (sources.isEmpty())
+			return true;
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.getDefault(), null);
+		try {
+			List<String> options = new ArrayList<String>();
+			options.add("-g");
+			options.add("-nowarn");
+			options.add("-d");
+			options.add(destination);
+			if (!classpath.equals("")) {
+				options.add("-classpath");
+				options.add(classpath);
+			}
+			if (!sourcepath.equals("")) {
+				options.add("-sourcepath");
+				options.add(sourcepath);
+			}
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sources);
+			boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+			if (success)
+				filesCompiled += sources.size();
+			return success;
+		} finally {
+			fileManager.close();
+		}
+	}
+
+	/**
+	 * Method that returns the diagnostics reported by the compiler, in the order they were reported.
+	 * @return - the list of diagnostics reported by the compiler.
+	 */
+	public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+		return diagnostics.getDiagnostics();
+	}
+
+	/**
+	 * Method that returns the number of errors reported by the compiler.
+	 * @return - the number of errors reported.
+	 */
+	public int getErrorCount() {
+		int count = 0;
+		for (Diagnostic<? extends JavaFileObject> d : getDiagnostics()) {
+			if (d.getKind() == Diagnostic.Kind.ERROR)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Method that returns the number of files successfully compiled by this object.
+	 * @return - the number of files compiled.
+	 */
+	public int getFilesCompiled() {
+		return filesCompiled;
+	}
+
+	/**
+	 * Method that returns the text of a diagnostic, in the same format used by javac on console.
+	 * @param d = the diagnostic to be formatted.
+	 * @return - the text of the diagnostic.
+	 */
+	public static String format(Diagnostic<? extends JavaFileObject> d) {
+		String source = (d.getSource() == null) ? "" : (d.getSource().getName() + ":" + d.getLineNumber() + ": ");
+		return source + d.getKind().toString().toLowerCase() + ": " + d.getMessage(Locale.getDefault());
+	}
+}
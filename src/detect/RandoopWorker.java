@@ -0,0 +1,89 @@
+package detect;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class run in a long-lived JVM that generates tests with Randoop for many jobs, so each job does not pay
+ * the JVM startup again. The jobs are read from the standard input, one line by class path entry
+ * ("CP entry") and by Randoop argument ("ARG argument"), ended by a "RUN" line. Each job runs Randoop on
+ * a new class loader of its class path (Randoop JAR, SUT classes and libraries), which is discarded when
+ * the job finishes, so nothing of a SUT remains to the next one. The output of Randoop goes to the
+ * standard output, followed by a line with {@link #DONE_MARKER} and the exit value of the job.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class RandoopWorker {
+
+	public static final String DONE_MARKER = "#JMLOK-RANDOOP-DONE ";
+
+	/**
+	 * Read and run jobs until the standard input is closed.
+	 * @param args from command line(non-used).
+	 * @throws IOException When the standard input could not be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		List<URL> classpath = new ArrayList<URL>();
+		List<String> randoopArgs = new ArrayList<String>();
+		String line;
+		while ((line = in.readLine()) != null) {
+			if(line.startsWith("CP ")){
+				classpath.add(new File(line.substring(3)).toURI().toURL());
+			}else if(line.startsWith("ARG ")){
+				randoopArgs.add(line.substring(4));
+			}else if(line.equals("RUN")){
+				int status = runJob(classpath, randoopArgs);
+				System.err.flush();
+				System.out.println();
+				System.out.println(DONE_MARKER + status);
+				System.out.flush();
+				classpath.clear();
+				randoopArgs.clear();
+			}
+		}
+	}
+
+	/**
+	 * Run the entry point of Randoop on a new class loader.
+	 * @param classpath = the class path of the job.
+	 * @param randoopArgs = the arguments given to Randoop.
+	 * @return the exit value of the job, 0 when Randoop finished normally.
+	 */
+	private static int runJob(List<URL> classpath, List<String> randoopArgs) {
+		Thread current = Thread.currentThread();
+		ClassLoader previous = current.getContextClassLoader();
+		URLClassLoader loader = new URLClassLoader(classpath.toArray(new URL[classpath.size()]),
+				ClassLoader.getSystemClassLoader().getParent());
+		current.setContextClassLoader(loader);
+		try {
+			Class<?> main = Class.forName("randoop.main.Main", true, loader);
+			Object randoop = main.getDeclaredConstructor().newInstance();
+			Method nonStaticMain = main.getMethod("nonStaticMain", String[].class);
+			Object result = nonStaticMain.invoke(randoop, (Object) randoopArgs.toArray(new String[randoopArgs.size()]));
+			return (Boolean.FALSE.equals(result)) ? 1 : 0;
+		} catch (InvocationTargetException e) {
+			e.getCause().printStackTrace();
+			return 1;
+		} catch (Exception e) {
+			e.printStackTrace();
+			return 1;
+		} finally {
+			current.setContextClassLoader(previous);
+			try {
+				loader.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
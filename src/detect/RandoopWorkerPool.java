@@ -0,0 +1,182 @@
+package detect;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import utils.ProcessSupervisor;
+
+/**
+ * Class that keeps the warm JVMs that run Randoop ({@link RandoopWorker}), reused by the detections of
+ * this JVM. A worker is taken from the pool for each job and given back when the job finishes; when the
+ * job does not finish normally (Randoop ended the JVM, or exceeded its time limits) the worker is
+ * discarded and a new one will be started when needed.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class RandoopWorkerPool {
+
+	/**
+	 * Exit value of the jobs whose worker ended, or was killed, before finishing them.
+	 */
+	public static final int WORKER_LOST = -1;
+
+	private static final RandoopWorkerPool SHARED = new RandoopWorkerPool();
+
+	private final Deque<Worker> idle = new ArrayDeque<Worker>();
+
+	/**
+	 * Class that represents one worker JVM.
+	 */
+	private static class Worker {
+		private final Process proc;
+		private final Writer toWorker;
+		private final BufferedReader fromWorker;
+
+		private Worker() throws IOException {
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			proc = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), RandoopWorker.class.getName())
+					.redirectErrorStream(true).start();
+			toWorker = new OutputStreamWriter(proc.getOutputStream(), StandardCharsets.UTF_8);
+			fromWorker = new BufferedReader(new InputStreamReader(proc.getInputStream(), Charset.defaultCharset()));
+		}
+
+		/**
+		 * Run a job on this worker, writing its output to the output stream.
+		 * @return the exit value of the job, or WORKER_LOST.
+		 */
+		private int run(List<String> classpath, List<String> args, OutputStream output) throws IOException {
+			StringBuilder request = new StringBuilder();
+			for (String entry : classpath) {
+				request.append("CP ").append(entry).append('\n');
+			}
+			for (String arg : args) {
+				request.append("ARG ").append(arg).append('\n');
+			}
+			toWorker.write(request.append("RUN\n").toString());
+			toWorker.flush();
+			String line;
+			while ((line = fromWorker.readLine()) != null) {
+				if(line.startsWith(RandoopWorker.DONE_MARKER))
+					return Integer.parseInt(line.substring(RandoopWorker.DONE_MARKER.length()).trim());
+				output.write((line + "\n").getBytes(Charset.defaultCharset()));
+			}
+			return WORKER_LOST;
+		}
+
+		private void destroy() {
+			proc.destroyForcibly();
+		}
+	}
+
+	private RandoopWorkerPool() {
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				shutdown();
+			}
+		}));
+	}
+
+	/**
+	 * Return the pool shared by the detections of this JVM.
+	 * @return the shared pool.
+	 */
+	public static RandoopWorkerPool getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Run Randoop on a warm worker. The job takes a slot of the supervisor, which accounts it as one of its
+	 * processes and kills the worker when the job exceeds its limits.
+	 * @param classpath = the class path of the job: Randoop JAR, the SUT classes and its libraries.
+	 * @param args = the arguments given to Randoop.
+	 * @param output = where the output of Randoop will be written.
+	 * @param supervisor = the supervisor of the processes of the detection.
+	 * @param wallClockLimit = the maximum time, in milliseconds, the job may run (0 for no limit).
+	 * @param cpuLimit = the maximum CPU time, in milliseconds, the job may use (0 for no limit).
+	 * @return the result of the job, whose exit value is the one of Randoop, or WORKER_LOST when the
+	 * worker ended before finishing the job.
+	 * @throws IOException When the worker could not be started.
+	 * @throws InterruptedException When interrupted while waiting; the worker is killed.
+	 */
+	public ProcessSupervisor.Result run(final List<String> classpath, final List<String> args, final OutputStream output,
+			ProcessSupervisor supervisor, long wallClockLimit, long cpuLimit) throws IOException, InterruptedException {
+		final Worker worker = acquire();
+		ProcessSupervisor.Result result = null;
+		try {
+			result = supervisor.supervise(worker.proc, new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					try {
+						return worker.run(classpath, args, output);
+					} catch (IOException e) {
+						return WORKER_LOST;
+					}
+				}
+			}, wallClockLimit, cpuLimit);
+			return result;
+		} catch (InterruptedException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e);
+		} finally {
+			if(result == null || result.getExitValue() == WORKER_LOST || result.isKilled())
+				worker.destroy();
+			else
+				release(worker);
+		}
+	}
+
+	private Worker acquire() throws IOException {
+		synchronized (idle) {
+			Worker worker;
+			while ((worker = idle.poll()) != null) {
+				if(worker.proc.isAlive())
+					return worker;
+			}
+		}
+		return new Worker();
+	}
+
+	private void release(Worker worker) {
+		synchronized (idle) {
+			idle.push(worker);
+		}
+	}
+
+	/**
+	 * Return the number of workers waiting for jobs.
+	 * @return the number of idle workers.
+	 */
+	public int getIdleWorkers() {
+		synchronized (idle) {
+			return idle.size();
+		}
+	}
+
+	/**
+	 * End all idle workers.
+	 */
+	public void shutdown() {
+		List<Worker> workers;
+		synchronized (idle) {
+			workers = new ArrayList<Worker>(idle);
+			idle.clear();
+		}
+		for (Worker worker : workers) {
+			worker.destroy();
+		}
+	}
+}
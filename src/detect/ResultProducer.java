@@ -1,19 +1,29 @@
 
 package detect;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashSet;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
@@ -24,11 +34,10 @@ import javax.xml.transform.stream.StreamResult;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 import utils.Constants;
 import utils.FileUtil;
+import utils.Workspace;
 import categorize.CategoryName;
 import categorize.Nonconformance;
 
@@ -44,11 +53,32 @@ public class ResultProducer {
 	 */
 	private int ncCount;
 	
+	/**
+	 * The workspace where the tests were run.
+	 */
+	private Workspace workspace;
+	
+	/**
+	 * Counters of the test cases and of the errors read from the test result files, used to metrics purposes.
+	 */
+	private AtomicInteger testsExecuted = new AtomicInteger();
+	private AtomicInteger errorsParsed = new AtomicInteger();
+	private TestErrorIndex errorIndex;
+	
 	/**
 	 * The constructor of this class, creates a new instance of Result Producer class, and initializes the nonconformances counter.
 	 */
 	public ResultProducer() {
+		this(Workspace.getDefault());
+	}
+	
+	/**
+	 * Creates a new instance of Result Producer class, reading the test results of a workspace.
+	 * @param workspace = the workspace where the tests were run.
+	 */
+	public ResultProducer(Workspace workspace) {
 		ncCount = 0;
+		this.workspace = workspace;
 	}
 	
 	/**
@@ -58,83 +88,176 @@ public class ResultProducer {
 	public int getNCTotal(){
 		return this.ncCount;
 	}
+	
+	/**
+	 * Method that returns the number of test cases read from the test result files.
+	 * @return - the number of test cases executed.
+	 */
+	public int getTestsExecuted(){
+		return this.testsExecuted.get();
+	}
+	
+	/**
+	 * Method that returns the number of errors read from the test result files, nonconformances or not.
+	 * @return - the number of errors read.
+	 */
+	public int getErrorsParsed(){
+		return this.errorsParsed.get();
+	}
 
 	/**
-	 * Method used to list the distinct nonconformances that were detected by the JMLOK tool.
+	 * Method used to list the distinct nonconformances that were detected by the JMLOK tool. All the
+	 * test result files (TEST-*.xml) of the tests directory are read, each one on a thread.
 	 * @param compiler = the integer that indicates the JML compiler used.
 	 * @return - the of list the distinct nonconformances that were detected by the JMLOK tool.
 	 */
-	public Set<TestError> listErrors(int compiler){
-		File results = new File(Constants.TEST_RESULTS);
-		Set<TestError> result;
-		if(compiler == Constants.JMLC_COMPILER){
-			result = getErrorsFromXML(results);
-		} else {
-			result = getErrorsFromFile(results);
+	public Set<TestError> listErrors(final int compiler){
+		return listErrors(compiler, getResultFiles(new File(workspace.getTestDir())));
+	}
+
+	/**
+	 * Method used to list the distinct nonconformances of some test result files, each one read on a thread.
+	 * A file that could not be read is reported and skipped, and the other files are still merged.
+	 * @param compiler = the integer that indicates the JML compiler used.
+	 * @param resultFiles = the test result files to be read.
+	 * @return - the list of the distinct nonconformances of the test result files.
+	 */
+	public Set<TestError> listErrors(final int compiler, List<File> resultFiles){
+		TestErrorIndex result = new TestErrorIndex();
+		List<Callable<TestErrorIndex>> readers = new ArrayList<Callable<TestErrorIndex>>();
+		for (final File results : resultFiles) {
+			readers.add(new Callable<TestErrorIndex>() {
+				@Override
+				public TestErrorIndex call() {
+					if(compiler == Constants.JMLC_COMPILER){
+						return getErrorsFromXML(results);
+					} else {
+						return getErrorsFromFile(results);
+					}
+				}
+			});
+		}
+		int threads = Math.max(1, Math.min(resultFiles.size(), Runtime.getRuntime().availableProcessors()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<TestErrorIndex>> read = executor.invokeAll(readers);
+			for (int i = 0; i < read.size(); i++) {
+				try {
+					result.addAll(read.get(i).get());
+				} catch (ExecutionException e) {
+					System.err.println("Error reading the test results " + resultFiles.get(i).getName() + ": " + e.getCause());
+					e.getCause().printStackTrace();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
 		}
 		this.ncCount = result.size();
-		return result;
+		this.errorIndex = result;
+		return result.toSet();
+	}
+
+	/**
+	 * Method that returns the index of the nonconformances listed on the last call of listErrors, with
+	 * the number of times each one occurred on the test results.
+	 * @return - the index of the nonconformances, or null if they were not listed yet.
+	 */
+	public TestErrorIndex getErrorIndex(){
+		return this.errorIndex;
+	}
+
+	/**
+	 * Method used to find the test result files written by JUnit on the tests directory.
+	 * @param testDir = the tests directory.
+	 * @return - the test result files found, or the default test result file if none was found.
+	 */
+	private List<File> getResultFiles(File testDir) {
+		List<File> resultFiles = new ArrayList<File>();
+		File[] files = testDir.listFiles();
+		if(files != null){
+			for (File f : files) {
+				if(f.isFile() && f.getName().startsWith("TEST-") && f.getName().endsWith(".xml"))
+					resultFiles.add(f);
+			}
+		}
+		if(resultFiles.isEmpty())
+			resultFiles.add(new File(workspace.getTestResults()));
+		return resultFiles;
 	}
 	
 	/**
 	 * Method used to get the nonconformances from the result file of Randoop, when the jmlc is used as compiler.
+	 * The file is read as a stream, so only the testcase being read is kept in memory.
 	 * @param file = the path to result file of Randoop.
 	 * @return - the list of nonconformances present in the test result file.
 	 */
-	private Set<TestError> getErrorsFromXML(File file) {
-		Set<TestError> result = new HashSet<TestError>();
-		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-		dbf.setNamespaceAware(false);
-		DocumentBuilder docBuilder;
+	private TestErrorIndex getErrorsFromXML(File file) {
+		TestErrorIndex result = new TestErrorIndex();
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
 
 		try {
-			docBuilder = dbf.newDocumentBuilder();
-			Document xml = docBuilder.parse(file);
-
-			NodeList list = xml.getDocumentElement().getElementsByTagName(
-					"testcase");
-
-			for (int i = 0; i < list.getLength(); i++) {
-				Element testcase = (Element) list.item(i);
-				if (testcase.hasChildNodes()) {
-					NodeList subNodes = testcase.getChildNodes();
-					for (int j = 0; j < subNodes.getLength(); j++) {
-						if (subNodes.item(j) instanceof Element) {
-							Element problem = (Element) subNodes.item(j);
-							if (problem.getTagName().equals("error")) {
-								String name = testcase.getAttribute("name");
-								String testFile = testcase.getAttribute("classname")+".java";
-								String errorType = problem.getAttribute("type");
-								String message = problem.getAttribute("message");
-								String detailedErrorMessage = problem.getFirstChild().toString();
-								TestError te = new TestError(name, testFile, message, errorType, detailedErrorMessage);
-								if(te.isNonconformance()){
-									result.add(te);
-								}
+			InputStream in = new BufferedInputStream(new FileInputStream(file));
+			try {
+				XMLStreamReader reader = factory.createXMLStreamReader(in);
+				String name = null;
+				String testFile = null;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						if (reader.getLocalName().equals("testcase")) {
+							testsExecuted.incrementAndGet();
+							name = getAttribute(reader, "name");
+							testFile = getAttribute(reader, "classname")+".java";
+						} else if (reader.getLocalName().equals("error") && name != null) {
+							errorsParsed.incrementAndGet();
+							String errorType = getAttribute(reader, "type");
+							String message = getAttribute(reader, "message");
+							// Keeps the format of the DOM text node read before, which TestError and
+							// Nonconformance are written against.
+							String detailedErrorMessage = "[#text: " + reader.getElementText() + "]";
+							TestError te = new TestError(name, testFile, message, errorType, detailedErrorMessage);
+							if(te.isNonconformance()){
+								result.add(te);
 							}
 						}
+					} else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("testcase")) {
+						name = null;
 					}
 				}
-
+				reader.close();
+			} finally {
+				in.close();
 			}
-
-		} catch (ParserConfigurationException e) {
-			e.printStackTrace();
-		} catch (SAXException e) {
+		} catch (XMLStreamException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 		return result;
 	}
+
+	/**
+	 * Get an attribute of the current element of an XML stream.
+	 * @param reader = the reader positioned on an element.
+	 * @param name = the name of the attribute.
+	 * @return - the value of the attribute, or an empty String if the element does not have it.
+	 */
+	private String getAttribute(XMLStreamReader reader, String name) {
+		String value = reader.getAttributeValue(null, name);
+		return (value == null) ? "" : value;
+	}
 	
 	/**
 	 * Method used to get the nonconformances from the result file of Randoop, when the OpenJml is used as compiler.
 	 * @param file = the path to result file of Randoop.
 	 * @return - the list of nonconformances present in the test result file.
 	 */
-	private Set<TestError> getErrorsFromFile(File file) {
-		Set<TestError> result = new HashSet<TestError>();
+	private TestErrorIndex getErrorsFromFile(File file) {
+		TestErrorIndex result = new TestErrorIndex();
 		try {
 			FileReader f = new FileReader(file);
 			BufferedReader in = new BufferedReader(f);
@@ -142,6 +265,7 @@ public class ResultProducer {
 			while ((line=in.readLine()) != null) {
 				StringBuilder text = new StringBuilder();
 				if (line.contains("JML ")) {
+					errorsParsed.incrementAndGet();
 					text.append(in.readLine());
 					if(!line.contains(CategoryName.PRECONDITION)){
 						in.readLine();
@@ -208,7 +332,17 @@ public class ResultProducer {
 	 * @return - the list of nonconformances detected by the JMLOK tool.
 	 */
 	public static Set<Nonconformance> generateResult(Set<Nonconformance> nonconformances){
-		Document doc = FileUtil.createXMLFile(Constants.RESULTS);
+		return generateResult(nonconformances, Workspace.getDefault());
+	}
+	
+	/**
+	 * Method that generates the file containing the nonconformances that were detected, on a workspace.
+	 * @param nonconformances = the set of nonconformances to go extracting info. 
+	 * @param workspace = the workspace where the file will be written.
+	 * @return - the list of nonconformances detected by the JMLOK tool.
+	 */
+	public static Set<Nonconformance> generateResult(Set<Nonconformance> nonconformances, Workspace workspace){
+		Document doc = FileUtil.createXMLFile(workspace.getResults());
 		Element raiz = doc.getDocumentElement();
 		for (Nonconformance nc : nonconformances) {
 			Element e = createsElement(doc, nc);
@@ -219,7 +353,7 @@ public class ResultProducer {
 		TransformerFactory transFactory = TransformerFactory.newInstance();
 		Transformer transformer;
 		try {
-			result = new StreamResult(new FileOutputStream(Constants.RESULTS));
+			result = new StreamResult(new FileOutputStream(workspace.getResults()));
 			transformer = transFactory.newTransformer();
 			transformer.setOutputProperty(OutputKeys.INDENT, "yes");
 			transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
@@ -0,0 +1,209 @@
+package detect;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import utils.FileUtil;
+
+/**
+ * Class used to keep the content hash of each source file compiled, so that a later execution
+ * of the tool can find which files changed since the last compilation.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class SourceManifest {
+
+	private static final String CLASSPATH_KEY = "#classpath";
+	private Map<String, String> hashes;
+	private String classpath;
+
+	/**
+	 * The constructor of this class, creates an empty manifest for the classpath received.
+	 * @param classpath = the fingerprint of the classpath used on compilation.
+	 */
+	public SourceManifest(String classpath) {
+		this.hashes = new TreeMap<String, String>();
+		this.classpath = classpath;
+	}
+
+	/**
+	 * Method used to create the manifest of all .java files present into a source folder.
+	 * @param sourceFolder = the folder of the source files.
+	 * @param classpath = the fingerprint of the classpath used on compilation.
+	 * @return - the manifest with the current hash of each source file.
+	 * @throws IOException When some file cannot be read.
+	 */
+	public static SourceManifest scan(String sourceFolder, String classpath) throws IOException {
+		SourceManifest manifest = new SourceManifest(classpath);
+		String base = new File(sourceFolder).getAbsolutePath();
+		for (File f : FileUtil.listFiles(sourceFolder, ".java")) {
+			String relative = f.getAbsolutePath().substring(base.length() + 1).replace(File.separatorChar, '/');
+			manifest.hashes.put(relative, FileUtil.hashFile(f));
+		}
+		return manifest;
+	}
+
+	/**
+	 * Method used to read a manifest saved by a previous execution.
+	 * @param file = the file where the manifest was saved.
+	 * @return - the manifest saved, or null if there is none.
+	 */
+	public static SourceManifest load(File file) {
+		if (!file.exists())
+			return null;
+		Properties p = new Properties();
+		try {
+			InputStream in = new FileInputStream(file);
+			try {
+				p.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+		SourceManifest manifest = new SourceManifest(p.getProperty(CLASSPATH_KEY, ""));
+		for (String key : p.stringPropertyNames()) {
+			if (!key.equals(CLASSPATH_KEY))
+				manifest.hashes.put(key, p.getProperty(key));
+		}
+		return manifest;
+	}
+
+	/**
+	 * Method used to save this manifest.
+	 * @param file = the file where the manifest will be saved.
+	 * @throws IOException When the file cannot be written.
+	 */
+	public void save(File file) throws IOException {
+		Properties p = new Properties();
+		p.putAll(hashes);
+		p.setProperty(CLASSPATH_KEY, classpath);
+		OutputStream out = new FileOutputStream(file);
+		try {
+			p.store(out, "JMLOK source manifest");
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Method that returns the fingerprint of the classpath used on compilation.
+	 * @return - the fingerprint of the classpath.
+	 */
+	public String getClasspath() {
+		return classpath;
+	}
+
+	/**
+	 * Method that returns a fingerprint of this manifest, that changes when some source file, or the
+	 * classpath, changes.
+	 * @return - the fingerprint of the manifest.
+	 */
+	public String getFingerprint() {
+		StringBuilder sb = new StringBuilder(classpath).append('\n');
+		for (Map.Entry<String, String> e : hashes.entrySet()) {
+			sb.append(e.getKey()).append('=').append(e.getValue()).append('\n');
+		}
+		return FileUtil.hashString(sb.toString());
+	}
+
+	/**
+	 * Method that returns the relative path of all source files of this manifest.
+	 * @return - the relative path of all source files, separated by '/'.
+	 */
+	public List<String> getFiles() {
+		return new ArrayList<String>(hashes.keySet());
+	}
+
+	/**
+	 * Method that returns the content hash of a source file.
+	 * @param relativePath = the path of the file, relative to the source folder.
+	 * @return - the hash of the file, or null if the file is not on this manifest.
+	 */
+	public String getHash(String relativePath) {
+		return hashes.get(relativePath);
+	}
+
+	/**
+	 * Method that lists the files that are new or whose content changed since a previous manifest.
+	 * @param previous = the manifest of the previous compilation.
+	 * @return - the relative path of the files changed.
+	 */
+	public List<String> changedFrom(SourceManifest previous) {
+		List<String> changed = new ArrayList<String>();
+		for (Map.Entry<String, String> e : hashes.entrySet()) {
+			if (!e.getValue().equals(previous.getHash(e.getKey())))
+				changed.add(e.getKey());
+		}
+		return changed;
+	}
+
+	/**
+	 * Method that lists the files of a previous manifest that are no longer present.
+	 * @param previous = the manifest of the previous compilation.
+	 * @return - the relative path of the files removed.
+	 */
+	public List<String> removedFrom(SourceManifest previous) {
+		List<String> removed = new ArrayList<String>();
+		for (String file : previous.getFiles()) {
+			if (!hashes.containsKey(file))
+				removed.add(file);
+		}
+		return removed;
+	}
+
+	/**
+	 * Method that lists the files of this manifest that reference some class of the files received, directly
+	 * or through other files that reference it: a class whose superclass, or some constant it inlines, comes
+	 * from a changed file must be compiled again even if it does not name the changed class. A file references
+	 * a class when it has the simple name of the class as a word.
+	 * @param sourceFolder = the folder of the source files.
+	 * @param files = the relative path of the files changed or removed.
+	 * @return - the relative path of the files that depend on the files received, not including them.
+	 * @throws IOException When some source file cannot be read.
+	 */
+	public Set<String> dependentsOf(String sourceFolder, Collection<String> files) throws IOException {
+		Set<String> dependents = new LinkedHashSet<String>();
+		Map<String, String> contents = new HashMap<String, String>();
+		List<String> pending = new ArrayList<String>(files);
+		while (!pending.isEmpty()) {
+			StringBuilder names = new StringBuilder();
+			for (String file : pending) {
+				String name = file.substring(file.lastIndexOf('/') + 1, file.length() - ".java".length());
+				names.append((names.length() == 0) ? "" : "|").append(Pattern.quote(name));
+			}
+			Pattern reference = Pattern.compile("\\b(" + names + ")\\b");
+			pending = new ArrayList<String>();
+			for (String file : hashes.keySet()) {
+				if (files.contains(file) || dependents.contains(file))
+					continue;
+				String content = contents.get(file);
+				if (content == null) {
+					content = new String(Files.readAllBytes(new File(sourceFolder, file).toPath()));
+					contents.put(file, content);
+				}
+				if (reference.matcher(content).find()) {
+					dependents.add(file);
+					pending.add(file);
+				}
+			}
+		}
+		return dependents;
+	}
+}
@@ -0,0 +1,128 @@
+package detect;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Class used to keep the stages of a detection completed on a workspace, each one with the fingerprint
+ * of its inputs, so a later execution can resume the detection from the first stage not completed,
+ * or whose inputs changed since it was completed.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class StageCheckpoint {
+
+	private static final String ORDER_KEY = "#order";
+	private Map<String, String> stages = new LinkedHashMap<String, String>();
+
+	/**
+	 * Method used to read the checkpoint saved by a previous execution.
+	 * @param file = the file where the checkpoint was saved.
+	 * @return - the checkpoint saved, or an empty one if there is none.
+	 */
+	public static StageCheckpoint load(File file) {
+		StageCheckpoint checkpoint = new StageCheckpoint();
+		if (!file.exists())
+			return checkpoint;
+		Properties p = new Properties();
+		try {
+			InputStream in = new FileInputStream(file);
+			try {
+				p.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return checkpoint;
+		}
+		for (String stage : p.getProperty(ORDER_KEY, "").split(",")) {
+			if (p.getProperty(stage) != null)
+				checkpoint.stages.put(stage, p.getProperty(stage));
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Method used to save this checkpoint. The checkpoint is written to a temporary file first, so an
+	 * execution that dies while saving it does not leave an incomplete checkpoint.
+	 * @param file = the file where the checkpoint will be saved.
+	 * @throws IOException When the file cannot be written.
+	 */
+	public synchronized void save(File file) throws IOException {
+		Properties p = new Properties();
+		p.putAll(stages);
+		StringBuilder order = new StringBuilder();
+		for (String stage : stages.keySet()) {
+			order.append((order.length() == 0) ? "" : ",").append(stage);
+		}
+		p.setProperty(ORDER_KEY, order.toString());
+		File temp = new File(file.getAbsolutePath() + ".tmp");
+		OutputStream out = new FileOutputStream(temp);
+		try {
+			p.store(out, "JMLOK stage checkpoint");
+		} finally {
+			out.close();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Method that checks if a stage was completed with the same inputs.
+	 * @param stage = the name of the stage.
+	 * @param fingerprint = the fingerprint of the current inputs of the stage.
+	 * @return - true if the stage was completed with these inputs.
+	 */
+	public synchronized boolean isComplete(String stage, String fingerprint) {
+		return fingerprint.equals(stages.get(stage));
+	}
+
+	/**
+	 * Method used to record a stage as completed. The stages completed after it are discarded, since
+	 * their inputs were produced by the previous execution of the stage.
+	 * @param stage = the name of the stage.
+	 * @param fingerprint = the fingerprint of the inputs of the stage.
+	 */
+	public synchronized void complete(String stage, String fingerprint) {
+		clearFrom(stage);
+		stages.put(stage, fingerprint);
+	}
+
+	/**
+	 * Method used to discard a stage and the stages completed after it.
+	 * @param stage = the name of the stage.
+	 */
+	public synchronized void clearFrom(String stage) {
+		boolean found = false;
+		for (String s : new ArrayList<String>(stages.keySet())) {
+			found = found || s.equals(stage);
+			if (found)
+				stages.remove(s);
+		}
+	}
+
+	/**
+	 * Method used to discard all stages.
+	 */
+	public synchronized void clear() {
+		stages.clear();
+	}
+
+	/**
+	 * Method that returns the stages completed, in the order they were completed.
+	 * @return - the names of the stages completed.
+	 */
+	public synchronized List<String> getStages() {
+		return new ArrayList<String>(stages.keySet());
+	}
+}
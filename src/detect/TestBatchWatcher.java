@@ -0,0 +1,60 @@
+package detect;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class used to watch the tests directory while Randoop generates tests, giving the test files that
+ * appeared since the last look, in batches. A file is only given when its size did not change between
+ * two looks, so a file still being written is left to the next batch.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class TestBatchWatcher {
+
+	private File testDir;
+	private Set<String> given;
+	private Map<String, Long> lastSizes;
+
+	/**
+	 * The constructor of this class.
+	 * @param testDir = the directory where Randoop writes the tests.
+	 */
+	public TestBatchWatcher(File testDir) {
+		this.testDir = testDir;
+		this.given = new HashSet<String>();
+		this.lastSizes = new HashMap<String, Long>();
+	}
+
+	/**
+	 * Method that returns the test files that appeared since the last call. Only the test classes
+	 * (like RandoopTest0.java) are given, the suites that call them are not.
+	 * @param generationFinished = true when the generation finished, so every file found is complete.
+	 * @return - the new test files, sorted by name.
+	 */
+	public List<File> poll(boolean generationFinished) {
+		List<File> batch = new ArrayList<File>();
+		File[] files = testDir.listFiles();
+		if (files == null)
+			return batch;
+		for (File f : files) {
+			String name = f.getName();
+			if (!f.isFile() || given.contains(name) || !name.matches(".*Test\\d+\\.java"))
+				continue;
+			Long lastSize = lastSizes.put(name, f.length());
+			if (generationFinished || (lastSize != null && lastSize.longValue() == f.length())) {
+				given.add(name);
+				lastSizes.remove(name);
+				batch.add(f);
+			}
+		}
+		Collections.sort(batch);
+		return batch;
+	}
+}
@@ -357,8 +357,13 @@ public class TestError {
 		}
 	}
 
+	/**
+	 * Hash code consistent with equals: the same for test errors whose type, class, method and package
+	 * differ only on case.
+	 */
 	@Override
 	public int hashCode() {
-		return getType().length()+getMethodName().length()+getClassName().length();
+		long fingerprint = TestErrorIndex.fingerprint(this);
+		return (int) (fingerprint ^ (fingerprint >>> 32));
 	}
 }
@@ -0,0 +1,175 @@
+package detect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class used to keep the distinct test errors read from the test results, with the number of times each
+ * one occurred. Two test errors are the same when they have the same type, package, class and method,
+ * ignoring case (see TestError.equals). Each error is reduced to a 64-bit fingerprint of these fields,
+ * taken after they are canonicalized, and the fingerprints are kept on an open-addressing table, so the
+ * cost of an insertion does not depend on how many errors share the length of their names.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class TestErrorIndex {
+
+	private static final int INITIAL_CAPACITY = 64;
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private long[] fingerprints = new long[INITIAL_CAPACITY];
+	private int[] slots = new int[INITIAL_CAPACITY];
+	private List<TestError> errors = new ArrayList<TestError>();
+	private int[] occurrences = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Creates an empty index.
+	 */
+	public TestErrorIndex() {
+		Arrays.fill(slots, -1);
+	}
+
+	/**
+	 * Method that computes the fingerprint of a test error, from its type, package, class and method,
+	 * in the case used by String.equalsIgnoreCase to compare them.
+	 * @param te = the test error.
+	 * @return - the fingerprint of the test error.
+	 */
+	public static long fingerprint(TestError te) {
+		long hash = FNV_OFFSET_BASIS;
+		hash = addField(hash, te.getType());
+		hash = addField(hash, te.getPackageName());
+		hash = addField(hash, te.getClassName());
+		hash = addField(hash, te.getMethodName());
+		// Final mix of MurmurHash3, so the low bits used by the table depend on all the bits of the hash.
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * Add a field to the hash, each char canonicalized as String.equalsIgnoreCase does, followed by
+	 * its length, so the boundaries between the fields are part of the hash.
+	 * @param hash = the hash of the fields added before.
+	 * @param field = the field to be added.
+	 * @return - the hash with the field added.
+	 */
+	private static long addField(long hash, String field) {
+		for (int i = 0; i < field.length(); i++) {
+			char c = Character.toLowerCase(Character.toUpperCase(field.charAt(i)));
+			hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+			hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+		}
+		return (hash ^ field.length()) * FNV_PRIME;
+	}
+
+	/**
+	 * Method used to add an occurrence of a test error.
+	 * @param te = the test error.
+	 * @return - true if the error was not on the index yet.
+	 */
+	public boolean add(TestError te) {
+		return add(te, fingerprint(te), 1);
+	}
+
+	/**
+	 * Method used to add all the errors of another index, with their occurrences.
+	 * @param other = the other index.
+	 */
+	public void addAll(TestErrorIndex other) {
+		for (int i = 0; i < other.errors.size(); i++) {
+			TestError te = other.errors.get(i);
+			add(te, fingerprint(te), other.occurrences[i]);
+		}
+	}
+
+	/**
+	 * Add occurrences of a test error, placing it on the table when it is not there yet.
+	 * @param te = the test error.
+	 * @param fingerprint = the fingerprint of the test error.
+	 * @param count = the number of occurrences added.
+	 * @return - true if the error was not on the index yet.
+	 */
+	private boolean add(TestError te, long fingerprint, int count) {
+		int mask = slots.length - 1;
+		int i = (int) fingerprint & mask;
+		while (slots[i] != -1) {
+			if(fingerprints[i] == fingerprint && errors.get(slots[i]).equals(te)){
+				occurrences[slots[i]] += count;
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		if(errors.size() == occurrences.length)
+			occurrences = Arrays.copyOf(occurrences, occurrences.length * 2);
+		fingerprints[i] = fingerprint;
+		slots[i] = errors.size();
+		occurrences[errors.size()] = count;
+		errors.add(te);
+		if(errors.size() * 2 > slots.length)
+			resize();
+		return true;
+	}
+
+	/**
+	 * Doubles the table, placing again the fingerprints kept.
+	 */
+	private void resize() {
+		long[] oldFingerprints = fingerprints;
+		int[] oldSlots = slots;
+		fingerprints = new long[oldSlots.length * 2];
+		slots = new int[oldSlots.length * 2];
+		Arrays.fill(slots, -1);
+		int mask = slots.length - 1;
+		for (int j = 0; j < oldSlots.length; j++) {
+			if(oldSlots[j] == -1)
+				continue;
+			int i = (int) oldFingerprints[j] & mask;
+			while (slots[i] != -1) {
+				i = (i + 1) & mask;
+			}
+			fingerprints[i] = oldFingerprints[j];
+			slots[i] = oldSlots[j];
+		}
+	}
+
+	/**
+	 * Method that returns how many times a test error occurred.
+	 * @param te = the test error.
+	 * @return - the number of occurrences, 0 if the error is not on the index.
+	 */
+	public int getOccurrences(TestError te) {
+		long fingerprint = fingerprint(te);
+		int mask = slots.length - 1;
+		int i = (int) fingerprint & mask;
+		while (slots[i] != -1) {
+			if(fingerprints[i] == fingerprint && errors.get(slots[i]).equals(te))
+				return occurrences[slots[i]];
+			i = (i + 1) & mask;
+		}
+		return 0;
+	}
+
+	/**
+	 * Method that returns the number of distinct test errors.
+	 * @return - the number of distinct test errors.
+	 */
+	public int size() {
+		return errors.size();
+	}
+
+	/**
+	 * Method that returns the distinct test errors, each one as it was first added.
+	 * @return - the distinct test errors, in the order they were first added.
+	 */
+	public Set<TestError> toSet() {
+		return new LinkedHashSet<TestError>(errors);
+	}
+}
@@ -0,0 +1,187 @@
+package detect;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * Class used to split the compiled tests among several JUnit workers, and to merge the reports
+ * of the workers in a single report, in the format produced by the ANT junit task.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class TestRunnerPool {
+
+	private int workers;
+
+	/**
+	 * The constructor of this class.
+	 * @param workers = the maximum number of JUnit workers.
+	 */
+	public TestRunnerPool(int workers) {
+		this.workers = Math.max(1, workers);
+	}
+
+	/**
+	 * Method used to split the test classes of a directory among the workers. Test suites generated
+	 * by Randoop (like RandoopTest, which only calls RandoopTest0..N) are left out when the classes
+	 * they call are present, so every test runs once. The classes are balanced by size.
+	 * @param testBin = the directory of the compiled tests.
+	 * @return - the names of the test classes given to each worker; no worker receives an empty list.
+	 */
+	public List<List<String>> partition(File testBin) {
+		List<File> tests = new ArrayList<File>();
+		List<File> suites = new ArrayList<File>();
+		File[] files = testBin.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				String name = f.getName();
+				if (!f.isFile() || name.contains("$") || !name.endsWith(".class"))
+					continue;
+				if (name.matches(".*Test\\d+\\.class"))
+					tests.add(f);
+				else if (name.endsWith("Test.class"))
+					suites.add(f);
+			}
+		}
+		if (tests.isEmpty())
+			tests = suites;
+		Collections.sort(tests, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				return Long.compare(b.length(), a.length());
+			}
+		});
+		int count = Math.min(workers, tests.size());
+		List<List<String>> partitions = new ArrayList<List<String>>();
+		long[] load = new long[count];
+		for (int i = 0; i < count; i++) {
+			partitions.add(new ArrayList<String>());
+		}
+		for (File test : tests) {
+			int lighter = 0;
+			for (int i = 1; i < count; i++) {
+				if (load[i] < load[lighter])
+					lighter = i;
+			}
+			partitions.get(lighter).add(test.getName().substring(0, test.getName().length() - ".class".length()));
+			load[lighter] += test.length();
+		}
+		return partitions;
+	}
+
+	/**
+	 * Method used to merge the XML reports of the workers into a single testsuite report.
+	 * @param reports = the XML reports produced by the workers.
+	 * @param target = the file of the merged report.
+	 * @param suiteName = the name of the merged testsuite.
+	 * @throws IOException When some report cannot be read or the merged report cannot be written.
+	 */
+	public static void mergeReports(List<File> reports, File target, String suiteName) throws IOException {
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		long tests = 0, errors = 0, failures = 0;
+		double time = 0;
+		for (File report : reports) {
+			InputStream in = new FileInputStream(report);
+			try {
+				XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+				while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+				}
+				tests += parseLong(reader.getAttributeValue(null, "tests"));
+				errors += parseLong(reader.getAttributeValue(null, "errors"));
+				failures += parseLong(reader.getAttributeValue(null, "failures"));
+				String t = reader.getAttributeValue(null, "time");
+				time += (t == null) ? 0 : Double.parseDouble(t);
+				reader.close();
+			} catch (XMLStreamException e) {
+				throw new IOException("Error while reading report " + report.getName() + ": " + e.getMessage());
+			} finally {
+				in.close();
+			}
+		}
+		OutputStream out = new FileOutputStream(target);
+		try {
+			XMLEventFactory events = XMLEventFactory.newInstance();
+			XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, "UTF-8");
+			writer.add(events.createStartDocument("UTF-8", "1.0"));
+			writer.add(events.createStartElement("", "", "testsuite"));
+			writer.add(events.createAttribute("name", suiteName));
+			writer.add(events.createAttribute("tests", String.valueOf(tests)));
+			writer.add(events.createAttribute("errors", String.valueOf(errors)));
+			writer.add(events.createAttribute("failures", String.valueOf(failures)));
+			writer.add(events.createAttribute("time", String.valueOf(time)));
+			for (File report : reports) {
+				copyTestcases(inputFactory, report, writer);
+			}
+			writer.add(events.createEndElement("", "", "testsuite"));
+			writer.add(events.createEndDocument());
+			writer.close();
+		} catch (XMLStreamException e) {
+			throw new IOException("Error while writing report " + target.getName() + ": " + e.getMessage());
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Copy the testcase elements of a report, with all its content, to the merged report.
+	 * @param inputFactory = the factory of the report reader.
+	 * @param report = the report to be copied.
+	 * @param writer = the writer of the merged report.
+	 * @throws IOException When the report cannot be read.
+	 * @throws XMLStreamException When the report is malformed.
+	 */
+	private static void copyTestcases(XMLInputFactory inputFactory, File report, XMLEventWriter writer) throws IOException, XMLStreamException {
+		InputStream in = new FileInputStream(report);
+		try {
+			XMLEventReader reader = inputFactory.createXMLEventReader(in);
+			int depth = 0;
+			boolean copying = false;
+			while (reader.hasNext()) {
+				XMLEvent e = reader.nextEvent();
+				if (e.isStartElement()) {
+					depth++;
+					if (depth == 2 && e.asStartElement().getName().getLocalPart().equals("testcase"))
+						copying = true;
+				}
+				if (copying)
+					writer.add(e);
+				if (e.isEndElement()) {
+					if (depth == 2)
+						copying = false;
+					depth--;
+				}
+			}
+			reader.close();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Parse an attribute containing a number, that can be missing.
+	 * @param value = the value of the attribute.
+	 * @return the number, or zero if the attribute is missing.
+	 */
+	private static long parseLong(String value) {
+		return (value == null) ? 0 : Long.parseLong(value);
+	}
+}
@@ -388,8 +388,8 @@ public class CategorizationScreenAdvisorFrame extends JFrame {
 			changeNode(0, nc.get(listNonconformances.getSelectedIndex())
 					.getPackageName());
 		}
-		textAreaTestCases.setText((new Examinator(null)).showsMethodCode(
-				new File(Constants.TEST_DIR	+ Constants.FILE_SEPARATOR
+		textAreaTestCases.setText((new Examinator(null, Controller.getWorkspace())).showsMethodCode(
+				new File(Controller.getWorkspace().getTestDir() + Constants.FILE_SEPARATOR
 						+ nc.get(listNonconformances.getSelectedIndex()).getTestFile()),
 				nc.get(listNonconformances.getSelectedIndex()).getTestFile().replace(".java", ""),
 				nc.get(listNonconformances.getSelectedIndex()).getTest()));
@@ -198,6 +198,12 @@ public class DetectionScreenAdvisorFrame extends JFrame {
 				modifyButton();
 			}
 			
+			@Override
+			public void detectExecutedTestsBatch(DetectEvent e) {
+				textArea.setText(baos.toString());
+				lblDetectionPhaseIs.setText("Current Stage: " + "Executing Tests (batch " + e.getBatch() + ")");
+			}
+			
 			@Override
 			public void detectCreatedDirectories(DetectEvent e) {
 				textArea.setText(baos.toString());
@@ -0,0 +1,162 @@
+package utils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class that keeps what the tool needs to know about a compiled class: its name, its superclass, the
+ * interfaces it implements and the names of its declared fields. The metadata is read from the bytes of
+ * the .class file, without loading the class, or taken from a class already loaded. Objects of this
+ * class are immutable.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public final class ClassMetadata {
+
+	private static final int MAGIC = 0xCAFEBABE;
+	private static final int ACC_INTERFACE = 0x0200;
+
+	private final String name;
+	private final String superclassName;
+	private final List<String> interfaces;
+	private final List<String> fields;
+
+	private ClassMetadata(String name, String superclassName, List<String> interfaces, List<String> fields) {
+		this.name = name;
+		this.superclassName = superclassName;
+		this.interfaces = Collections.unmodifiableList(interfaces);
+		this.fields = Collections.unmodifiableList(fields);
+	}
+
+	/**
+	 * Method that takes the metadata of a class already loaded.
+	 * @param clazz = the class.
+	 * @return - the metadata of the class.
+	 */
+	public static ClassMetadata fromClass(Class<?> clazz) {
+		List<String> interfaces = new ArrayList<String>();
+		for (Class<?> i : clazz.getInterfaces()) {
+			interfaces.add(i.getName());
+		}
+		List<String> fields = new ArrayList<String>();
+		for (Field field : clazz.getDeclaredFields()) {
+			fields.add(field.getName());
+		}
+		Class<?> superclass = clazz.getSuperclass();
+		return new ClassMetadata(clazz.getName(), (superclass == null) ? null : superclass.getName(), interfaces, fields);
+	}
+
+	/**
+	 * Method that reads the metadata of a class from the bytes of its .class file. Only the constant pool,
+	 * the header and the fields of the file are read.
+	 * @param in = the stream with the bytes of the .class file.
+	 * @return - the metadata of the class.
+	 * @throws IOException When the stream could not be read, or it is not a .class file.
+	 */
+	public static ClassMetadata read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if(data.readInt() != MAGIC)
+			throw new IOException("Not a class file.");
+		data.readUnsignedShort();
+		data.readUnsignedShort();
+		int constants = data.readUnsignedShort();
+		String[] utf8 = new String[constants];
+		int[] classNames = new int[constants];
+		for (int i = 1; i < constants; i++) {
+			int tag = data.readUnsignedByte();
+			switch (tag) {
+			case 1:
+				utf8[i] = data.readUTF();
+				break;
+			case 7:
+				classNames[i] = data.readUnsignedShort();
+				break;
+			case 8: case 16: case 19: case 20:
+				data.skipBytes(2);
+				break;
+			case 15:
+				data.skipBytes(3);
+				break;
+			case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+				data.skipBytes(4);
+				break;
+			case 5: case 6:
+				// Long and double constants take two entries of the pool.
+				data.skipBytes(8);
+				i++;
+				break;
+			default:
+				throw new IOException("Unknown constant pool tag " + tag + ".");
+			}
+		}
+		int access = data.readUnsignedShort();
+		String name = getClassName(data.readUnsignedShort(), utf8, classNames);
+		String superclassName = getClassName(data.readUnsignedShort(), utf8, classNames);
+		if((access & ACC_INTERFACE) != 0)
+			superclassName = null;
+		List<String> interfaces = new ArrayList<String>();
+		int count = data.readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			interfaces.add(getClassName(data.readUnsignedShort(), utf8, classNames));
+		}
+		List<String> fields = new ArrayList<String>();
+		count = data.readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			data.readUnsignedShort();
+			fields.add(utf8[data.readUnsignedShort()]);
+			data.readUnsignedShort();
+			int attributes = data.readUnsignedShort();
+			for (int j = 0; j < attributes; j++) {
+				data.readUnsignedShort();
+				data.skipBytes(data.readInt());
+			}
+		}
+		return new ClassMetadata(name, superclassName, interfaces, fields);
+	}
+
+	/**
+	 * Take the binary name of a class from the constant pool, or null for the index 0.
+	 */
+	private static String getClassName(int index, String[] utf8, int[] classNames) {
+		if(index == 0)
+			return null;
+		return utf8[classNames[index]].replace('/', '.');
+	}
+
+	/**
+	 * Method that returns the complete name of the class.
+	 * @return - the binary name of the class, as returned by Class.getName.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Method that returns the complete name of the superclass.
+	 * @return - the name of the superclass, or null for interfaces and java.lang.Object.
+	 */
+	public String getSuperclassName() {
+		return superclassName;
+	}
+
+	/**
+	 * Method that returns the complete names of the interfaces implemented directly by the class.
+	 * @return - an unmodifiable list with the names of the interfaces.
+	 */
+	public List<String> getInterfaces() {
+		return interfaces;
+	}
+
+	/**
+	 * Method that returns the names of the fields declared by the class, including the synthetic ones.
+	 * @return - an unmodifiable list with the names of the fields, in the order of the .class file.
+	 */
+	public List<String> getFields() {
+		return fields;
+	}
+}
@@ -0,0 +1,123 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class used to keep the metadata of the classes compiled on a workspace, so each class is read once.
+ * The metadata of a class is read from its .class file on the workspace, without loading it; a class
+ * that is not there, or whose file could not be read, is loaded once by a class loader shared by all
+ * lookups on the workspace. The metadata read from a file is read again when the file changes.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class ClassMetadataCache {
+
+	private static final Map<String, ClassMetadataCache> CACHES = new HashMap<String, ClassMetadataCache>();
+
+	private final Workspace workspace;
+	private final String basePath;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private CustomClassLoader loader;
+
+	/**
+	 * Class that keeps the metadata of a class, with the last modification time and size of its .class file
+	 * on the workspace when the metadata was taken (0 when there was no file).
+	 */
+	private static class Entry {
+		private final ClassMetadata metadata;
+		private final long lastModified;
+		private final long length;
+
+		private Entry(ClassMetadata metadata, long lastModified, long length) {
+			this.metadata = metadata;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+	}
+
+	private ClassMetadataCache(Workspace workspace) {
+		this.workspace = workspace;
+		this.basePath = workspace.getSourceBin() + Constants.FILE_SEPARATOR;
+	}
+
+	/**
+	 * Method that returns the cache of the classes compiled on a workspace.
+	 * @param workspace = the workspace where the classes were compiled.
+	 * @return - the cache of the workspace.
+	 */
+	public static ClassMetadataCache forWorkspace(Workspace workspace) {
+		synchronized (CACHES) {
+			ClassMetadataCache cache = CACHES.get(workspace.getSourceBin());
+			if(cache == null){
+				cache = new ClassMetadataCache(workspace);
+				CACHES.put(workspace.getSourceBin(), cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Method used to discard the cache of a workspace, when the workspace is deleted.
+	 * @param workspace = the workspace.
+	 */
+	public static void remove(Workspace workspace) {
+		synchronized (CACHES) {
+			CACHES.remove(workspace.getSourceBin());
+		}
+	}
+
+	/**
+	 * Method that returns the metadata of a class.
+	 * @param className = the complete name of the class.
+	 * @return - the metadata of the class.
+	 * @throws ClassNotFoundException When the class is not on the workspace and could not be loaded.
+	 */
+	public ClassMetadata get(String className) throws ClassNotFoundException {
+		File f = new File(basePath + className.replace('.', '/') + ".class");
+		long lastModified = f.lastModified();
+		long length = f.length();
+		Entry entry = entries.get(className);
+		if(entry != null && entry.lastModified == lastModified && entry.length == length)
+			return entry.metadata;
+		ClassMetadata metadata = null;
+		if(lastModified != 0){
+			try {
+				InputStream in = new BufferedInputStream(new FileInputStream(f));
+				try {
+					metadata = ClassMetadata.read(in);
+				} finally {
+					in.close();
+				}
+				if(!metadata.getName().equals(className))
+					metadata = null;
+			} catch (IOException e) {
+				metadata = null;
+			}
+		}
+		if(metadata == null)
+			metadata = ClassMetadata.fromClass(Class.forName(className, false, getLoader()));
+		entries.put(className, new Entry(metadata, lastModified, length));
+		return metadata;
+	}
+
+	private synchronized CustomClassLoader getLoader() {
+		if(loader == null)
+			loader = new CustomClassLoader(workspace);
+		return loader;
+	}
+
+	/**
+	 * Method used to discard the metadata kept and the class loader of the workspace.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		loader = null;
+	}
+}
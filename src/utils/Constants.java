@@ -20,6 +20,8 @@ public class Constants {
 	public static final String TESTS = TEMP_DIR + FILE_SEPARATOR + "tests";
 	public static final String TEST_DIR = TESTS + FILE_SEPARATOR + "src";
 	public static final String TEST_BIN = TESTS + FILE_SEPARATOR + "bin";
+	//Constant to directory that keeps the classes compiled by JML compilers between executions.
+	public static final String JML_CACHE = TEMP_DIR + FILE_SEPARATOR + "jmlCache";
 	//Constant to file that has the class names. 
 	public static final String CLASSES = TEMP_DIR + FILE_SEPARATOR  + "classes.txt";
 	//Constants to result of Randoop execution under SUT.
@@ -9,16 +9,35 @@ import java.io.FileInputStream;
  */
 
 public class CustomClassLoader extends ClassLoader {
-	
-	final String basePath = Constants.SOURCE_BIN+Constants.FILE_SEPARATOR;
-	
+
+	final String basePath;
+
+	static {
+		registerAsParallelCapable();
+	}
+
+	/**
+	 * Creates a class loader of the classes compiled on the default workspace.
+	 */
+	public CustomClassLoader() {
+		this(Workspace.getDefault());
+	}
+
+	/**
+	 * Creates a class loader of the classes compiled on a workspace.
+	 * @param workspace The workspace where the classes were compiled.
+	 */
+	public CustomClassLoader(Workspace workspace) {
+		basePath = workspace.getSourceBin()+Constants.FILE_SEPARATOR;
+	}
+
 	@Override
     protected Class<?> findClass(final String name) throws ClassNotFoundException {
         String fullName = name.replace('.', '/');
         fullName += ".class";
 
         String path = basePath + fullName;
-        
+
         try {
             FileInputStream fis = new FileInputStream(path);
             byte[] data = new byte[fis.available()];
@@ -5,10 +5,14 @@ import gui.CategorizationScreenAdvisorFrame;
 import java.awt.Font;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
@@ -25,7 +29,6 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
-import org.apache.commons.lang.StringUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -124,6 +127,32 @@ public class FileUtil {
 		return result;
 	}
 
+	/**
+	 * Method to list all files with some extension into a directory and its
+	 * sub directories.
+	 *
+	 * @param path
+	 *            - base directory to be searched.
+	 * @param fileExtension
+	 *            - the extension of the files searched.
+	 * @return - The files found, with absolute paths.
+	 */
+	public static List<File> listFiles(String path, String fileExtension) {
+		List<File> result = new ArrayList<File>();
+		File dir = new File(path);
+		if (!dir.exists()) {
+			throw new RuntimeException("Directory " + dir.getAbsolutePath()
+					+ " does not exist.");
+		}
+		for (File file : dir.listFiles()) {
+			if (file.isDirectory())
+				result.addAll(listFiles(file.getAbsolutePath(), fileExtension));
+			else if (file.getName().endsWith(fileExtension))
+				result.add(file.getAbsoluteFile());
+		}
+		return result;
+	}
+
 	/**
 	 * Method to remove the extension of the files.
 	 * 
@@ -188,6 +217,72 @@ public class FileUtil {
 		return result;
 	}
 
+	/**
+	 * Method to calculate the SHA-256 hash of the content of a file.
+	 * 
+	 * @param file
+	 *            - the file to be read.
+	 * @return - the hash of the content, in hexadecimal.
+	 * @throws IOException
+	 *             When the file cannot be read.
+	 */
+	public static String hashFile(File file) throws IOException {
+		MessageDigest digest = newDigest();
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Method to calculate the SHA-256 hash of a text.
+	 * 
+	 * @param text
+	 *            - the text to be hashed.
+	 * @return - the hash of the text, in hexadecimal.
+	 */
+	public static String hashString(String text) {
+		MessageDigest digest = newDigest();
+		digest.update(text.getBytes(StandardCharsets.UTF_8));
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Creates the digest used on hashes of the tool.
+	 * 
+	 * @return - a SHA-256 digest.
+	 */
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-256 is not supported by this JVM.");
+		}
+	}
+
+	/**
+	 * Converts a byte array to its hexadecimal representation.
+	 * 
+	 * @param bytes
+	 *            - the bytes to be converted.
+	 * @return - the hexadecimal representation.
+	 */
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
 	/**
 	 * Method to read a single line of a file received as parameter.
 	 * 
@@ -237,27 +332,29 @@ public class FileUtil {
 	 */
 	public static String lineSampleWhoOriginatedError(String testFile,
 			int wishedLine, String test, int[] arr) throws IOException {
-		BufferedReader f = new BufferedReader(new FileReader(Constants.TEST_DIR
-				+ Constants.FILE_SEPARATOR + testFile));
-		String line;
-		String testExtract = "";
-		boolean foundTest = false;
-		
-		int counterLines = 0;
-		while ((line = f.readLine()) != null) {
-			counterLines++;
-			if(line.contains("public void " + test + "()")){
-				foundTest = true;
-			}else if (counterLines == wishedLine) {
-				f.close();
-				arr[0] = StringUtils.countMatches(testExtract, line);
-				return line;
-			}else if(foundTest){
-				testExtract += line;
-			}
-		}
-		f.close();
-		return "";
+		return lineSampleWhoOriginatedError(testFile, wishedLine, test, arr, Workspace.getDefault());
+	}
+
+	/**
+	 * Returns copy of line in method to highlight in test cases whom discovered
+	 * specified error, reading the test file from the tests of a workspace. The
+	 * test file is indexed once, see TestSourceIndex.
+	 * 
+	 * @param testFile
+	 *            The test file where the error was called.
+	 * @param wishedLine
+	 *            The line of the file where the error was founded.
+	 * @param arr Array containing the number of occurrences of the of line that originated error, before it.
+	 * @param workspace
+	 *            The workspace where the tests were generated.
+	 * @return copy of line that originated error.
+	 * @throws IOException
+	 *             When failing to read the file.
+	 */
+	public static String lineSampleWhoOriginatedError(String testFile,
+			int wishedLine, String test, int[] arr, Workspace workspace) throws IOException {
+		return TestSourceIndex.forFile(new File(workspace.getTestDir()
+				+ Constants.FILE_SEPARATOR + testFile)).lineSampleWhoOriginatedError(wishedLine, test, arr);
 	}
 
 
@@ -313,15 +410,22 @@ public class FileUtil {
 	 * @return = the list of all variables from the class received as parameter.
 	 */
 	public static ArrayList<String> getVariablesFromClass(String path) {
+		return getVariablesFromClass(path, Workspace.getDefault());
+	}
+
+	/**
+	 * Method that gets all variables from a class compiled on a workspace.
+	 * 
+	 * @param path
+	 *            = the path for the class that the variables will be got.
+	 * @param workspace
+	 *            = the workspace where the class was compiled.
+	 * @return = the list of all variables from the class received as parameter.
+	 */
+	public static ArrayList<String> getVariablesFromClass(String path, Workspace workspace) {
 		ArrayList<String> variables = new ArrayList<String>();
 		try {
-			Class<?> clazz = Class.forName(path, true, new CustomClassLoader());
-			Field[] fields = clazz.getDeclaredFields();
-			for (Field field : fields) {
-				String aux = field.toString();
-				aux = aux.substring(aux.lastIndexOf(".") + 1, aux.length());
-				variables.add(aux);
-			}
+			variables.addAll(ClassMetadataCache.forWorkspace(workspace).get(path).getFields());
 		} catch (ClassNotFoundException e) {
 			System.err
 					.println("Error in method FileUtil.getVariablesFromClass()");
@@ -338,13 +442,24 @@ public class FileUtil {
 	 *         implemented.
 	 */
 	public static ArrayList<String> getInterfacesPathFromClass(String path) {
+		return getInterfacesPathFromClass(path, Workspace.getDefault());
+	}
+
+	/**
+	 * Get complete class names of the interfaces implemented by a Class
+	 * compiled on a workspace.
+	 * 
+	 * @param path
+	 *            The complete class name from the class searched.
+	 * @param workspace
+	 *            The workspace where the class was compiled.
+	 * @return Array containing all complete class names from the interfaces
+	 *         implemented.
+	 */
+	public static ArrayList<String> getInterfacesPathFromClass(String path, Workspace workspace) {
 		ArrayList<String> interfacesPackagePath = new ArrayList<String>();
 		try {
-			Class<?> clazz = Class.forName(path, true, new CustomClassLoader());
-			Class<?>[] interfaces = clazz.getInterfaces();
-			for (Class<?> i : interfaces) {
-				interfacesPackagePath.add(i.getName());
-			}
+			interfacesPackagePath.addAll(ClassMetadataCache.forWorkspace(workspace).get(path).getInterfaces());
 		} catch (ClassNotFoundException e) {
 			e.printStackTrace();
 		}
@@ -362,14 +477,29 @@ public class FileUtil {
 	 *         extended.
 	 */
 	public static String getSuperclassPathFromClass(String path, String srcDir) {
+		return getSuperclassPathFromClass(path, srcDir, Workspace.getDefault());
+	}
+
+	/**
+	 * Get complete class name of the Super Class extended by a Class compiled
+	 * on a workspace.
+	 * 
+	 * @param path
+	 *            The complete class name from the class searched.
+	 * @param srcDir
+	 *            The source directory where the project examined are located.
+	 * @param workspace
+	 *            The workspace where the class was compiled.
+	 * @return String representing the complete class name from the Super Class
+	 *         extended.
+	 */
+	public static String getSuperclassPathFromClass(String path, String srcDir, Workspace workspace) {
 		String superClassPackagePath = "";
 		try {
-			Class<?> clazz = Class.forName(path, true, new CustomClassLoader());
-			Class<?> superclass = clazz.getSuperclass();
+			String superclass = ClassMetadataCache.forWorkspace(workspace).get(path).getSuperclassName();
 			if (superclass != null
-					&& listNames(srcDir, "", ".java").contains(
-							superclass.getName()))
-				superClassPackagePath = superclass.getName();
+					&& listNames(srcDir, "", ".java").contains(superclass))
+				superClassPackagePath = superclass;
 		} catch (ClassNotFoundException e) {
 			e.printStackTrace();
 		}
@@ -405,18 +535,74 @@ public class FileUtil {
 	 */
 	public static String getCommandToUseRandoop(String timeout,
 			String pathToRandoop, String liblist) {
+		return getCommandToUseRandoop(timeout, pathToRandoop, liblist, Workspace.getDefault());
+	}
+
+	/**
+	 * Return the ideal command to execute Randoop and generate tests on a
+	 * workspace.
+	 * 
+	 * @param timeout
+	 *            The time used to generate Tests.
+	 * @param pathToRandoop
+	 *            The path where randoop.jar will be located.
+	 * @param liblist
+	 *            The list of external libraries.
+	 * @param workspace
+	 *            The workspace where the classes were compiled and the tests
+	 *            will be written.
+	 * @return The String to be executed in Runtime execution.
+	 */
+	public static String getCommandToUseRandoop(String timeout,
+			String pathToRandoop, String liblist, Workspace workspace) {
 		String bruteCommand = "java -cp \"" + pathToRandoop + ";"
-				+ Constants.SOURCE_BIN
+				+ workspace.getSourceBin()
 				+ ((liblist.equals("")) ? ("") : (";" + liblist))
 				+ "\" randoop.main.Main gentests --classlist="
-				+ Constants.CLASSES + " --timelimit=" + timeout
-				+ " --junit-output-dir=" + Constants.TEST_DIR;
+				+ workspace.getClasses() + " --timelimit=" + timeout
+				+ " --junit-output-dir=" + workspace.getTestDir();
 		if (System.getProperty("os.name").contains("Windows"))
 			return bruteCommand;
 		else
 			return bruteCommand.replaceAll(";", ":");
 	}
 
+	/**
+	 * Return the command to execute Randoop over a list of classes, writing the
+	 * tests to a specific directory.
+	 * 
+	 * @param timeout
+	 *            The time used to generate Tests.
+	 * @param pathToRandoop
+	 *            The path where randoop.jar will be located.
+	 * @param liblist
+	 *            The list of external libraries.
+	 * @param classesFile
+	 *            The file listing the classes to be tested.
+	 * @param outputDir
+	 *            The directory where the tests will be written.
+	 * @param className
+	 *            The name of the test class generated.
+	 * @param seed
+	 *            The random seed used by Randoop.
+	 * @param sourceBin
+	 *            The directory where the classes under test were compiled.
+	 * @return The String to be executed in Runtime execution.
+	 */
+	public static String getCommandToUseRandoop(String timeout,
+			String pathToRandoop, String liblist, String classesFile,
+			String outputDir, String className, int seed, String sourceBin) {
+		String separator = (System.getProperty("os.name").contains("Windows")) ? ";"
+				: ":";
+		return "java -cp \"" + pathToRandoop + separator
+				+ sourceBin
+				+ ((liblist.equals("")) ? ("") : (separator + liblist))
+				+ "\" randoop.main.Main gentests --classlist=" + classesFile
+				+ " --timelimit=" + timeout + " --junit-output-dir="
+				+ outputDir + " --junit-classname=" + className
+				+ " --randomseed=" + seed;
+	}
+
 	/**
 	 * Forces a default Font for all components of actual JFrame.
 	 * 
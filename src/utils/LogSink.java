@@ -0,0 +1,181 @@
+package utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Class that receives the output of a tool (like the Ant tasks that run the compilers and the tests)
+ * as it is produced. The output is written, by chunks, to a spill file, the last bytes are kept on a
+ * bounded buffer in memory, and each chunk is given to the subscribers of the sink.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class LogSink extends OutputStream {
+
+	/**
+	 * Default size, in bytes, of the tail kept in memory.
+	 */
+	public static final int DEFAULT_TAIL_SIZE = 64 * 1024;
+
+	/**
+	 * Interface of the objects that receive the output of a sink, as it is written.
+	 */
+	public interface Subscriber {
+		/**
+		 * Receive a chunk of the output.
+		 * @param b The buffer with the chunk.
+		 * @param off The position of the chunk on the buffer.
+		 * @param len The number of bytes of the chunk.
+		 */
+		void write(byte[] b, int off, int len);
+	}
+
+	/**
+	 * Subscriber that writes the output to the current System.out.
+	 */
+	public static final Subscriber SYSTEM_OUT = new Subscriber() {
+		@Override
+		public void write(byte[] b, int off, int len) {
+			System.out.write(b, off, len);
+			System.out.flush();
+		}
+	};
+
+	private final byte[] tail;
+	private int tailStart = 0;
+	private int tailLength = 0;
+	private long written = 0;
+	private final File spillFile;
+	private OutputStream spill;
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<Subscriber>();
+
+	/**
+	 * Creates a sink that keeps the output only in memory.
+	 * @param tailSize The number of bytes of the output kept in memory.
+	 */
+	public LogSink(int tailSize) {
+		this(null, tailSize);
+	}
+
+	/**
+	 * Creates a sink that writes the output to a file.
+	 * @param spillFile The file where all the output is written (null to keep the output only in memory).
+	 * @param tailSize The number of bytes of the output kept in memory.
+	 */
+	public LogSink(File spillFile, int tailSize) {
+		this.spillFile = spillFile;
+		this.tail = new byte[tailSize];
+	}
+
+	/**
+	 * Add a subscriber, that receives the output written from now on.
+	 * @param s The subscriber.
+	 */
+	public void subscribe(Subscriber s) {
+		subscribers.add(s);
+	}
+
+	/**
+	 * Remove a subscriber, that receives no more output.
+	 * @param s The subscriber.
+	 */
+	public void unsubscribe(Subscriber s) {
+		subscribers.remove(s);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[]{(byte) b}, 0, 1);
+	}
+
+	@Override
+	public synchronized void write(byte[] b, int off, int len) throws IOException {
+		if(len == 0)
+			return;
+		if(spillFile != null){
+			if(spill == null){
+				spillFile.getAbsoluteFile().getParentFile().mkdirs();
+				spill = new BufferedOutputStream(new FileOutputStream(spillFile, true));
+			}
+			spill.write(b, off, len);
+		}
+		appendToTail(b, off, len);
+		written += len;
+		for (Subscriber s : subscribers) {
+			s.write(b, off, len);
+		}
+	}
+
+	/**
+	 * Keeps the bytes written on the circular buffer of the tail, discarding the oldest ones.
+	 */
+	private void appendToTail(byte[] b, int off, int len) {
+		if(tail.length == 0)
+			return;
+		if(len >= tail.length){
+			System.arraycopy(b, off + len - tail.length, tail, 0, tail.length);
+			tailStart = 0;
+			tailLength = tail.length;
+			return;
+		}
+		int end = (tailStart + tailLength) % tail.length;
+		int first = Math.min(len, tail.length - end);
+		System.arraycopy(b, off, tail, end, first);
+		System.arraycopy(b, off + first, tail, 0, len - first);
+		int overflow = tailLength + len - tail.length;
+		if(overflow > 0){
+			tailStart = (tailStart + overflow) % tail.length;
+			tailLength = tail.length;
+		}else{
+			tailLength += len;
+		}
+	}
+
+	/**
+	 * Return the last bytes written, as text.
+	 * @return the tail of the output.
+	 */
+	public synchronized String getTail() {
+		byte[] copy = new byte[tailLength];
+		int first = Math.min(tailLength, tail.length - tailStart);
+		System.arraycopy(tail, tailStart, copy, 0, first);
+		System.arraycopy(tail, 0, copy, first, tailLength - first);
+		return new String(copy, Charset.defaultCharset());
+	}
+
+	/**
+	 * Return the number of bytes written to this sink.
+	 * @return the number of bytes written.
+	 */
+	public synchronized long getWritten() {
+		return written;
+	}
+
+	/**
+	 * Return the file where all the output is written.
+	 * @return the spill file, or null if the output is kept only in memory.
+	 */
+	public File getSpillFile() {
+		return spillFile;
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		if(spill != null)
+			spill.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(spill != null){
+			spill.close();
+			spill = null;
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package utils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class that keeps the metrics of one execution of the JMLOK tool: counters, gauges and histograms of
+ * durations, and exports them as JSON and in the text format of Prometheus. The name of a metric may
+ * have labels, in the Prometheus way, as in <code>jmlok_stage_seconds{stage="compiled_java"}</code>.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class Metrics {
+
+	/**
+	 * Upper bounds, in seconds, of the buckets of the histograms.
+	 */
+	public static final double[] SECONDS_BUCKETS = {0.1, 0.5, 1, 5, 10, 30, 60, 300, 900};
+
+	private final Map<String, Long> counters = new TreeMap<String, Long>();
+	private final Map<String, Double> gauges = new TreeMap<String, Double>();
+	private final Map<String, Histogram> histograms = new TreeMap<String, Histogram>();
+
+	/**
+	 * Class that counts the values observed by bucket, and keeps their sum.
+	 */
+	public static class Histogram {
+		private final long[] buckets = new long[SECONDS_BUCKETS.length];
+		private long count;
+		private double sum;
+
+		private void observe(double value) {
+			for (int i = 0; i < SECONDS_BUCKETS.length; i++) {
+				if(value <= SECONDS_BUCKETS[i])
+					buckets[i]++;
+			}
+			count++;
+			sum += value;
+		}
+
+		/**
+		 * Return the number of values observed.
+		 * @return the number of values observed.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Return the sum of the values observed, in seconds.
+		 * @return the sum of the values observed.
+		 */
+		public double getSum() {
+			return sum;
+		}
+	}
+
+	/**
+	 * Class used to measure the duration of something, as a value of a histogram.
+	 */
+	public class Timer {
+		private final String name;
+		private final long start = System.nanoTime();
+
+		private Timer(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Stops the timer, and records its duration.
+		 * @return the duration, in milliseconds.
+		 */
+		public long stop() {
+			long elapsed = System.nanoTime() - start;
+			observe(name, elapsed / 1e9);
+			return elapsed / 1000000;
+		}
+	}
+
+	/**
+	 * Starts to measure a duration, that will be recorded on a histogram when the timer is stopped.
+	 * @param name The name of the histogram.
+	 * @return the timer started.
+	 */
+	public Timer startTimer(String name) {
+		return new Timer(name);
+	}
+
+	/**
+	 * Add a value to a counter.
+	 * @param name The name of the counter.
+	 * @param delta The value to be added.
+	 */
+	public synchronized void increment(String name, long delta) {
+		Long value = counters.get(name);
+		counters.put(name, (value == null) ? delta : value + delta);
+	}
+
+	/**
+	 * Set the value of a gauge.
+	 * @param name The name of the gauge.
+	 * @param value The value of the gauge.
+	 */
+	public synchronized void setGauge(String name, double value) {
+		gauges.put(name, value);
+	}
+
+	/**
+	 * Records a value, in seconds, on a histogram.
+	 * @param name The name of the histogram.
+	 * @param value The value observed.
+	 */
+	public synchronized void observe(String name, double value) {
+		Histogram h = histograms.get(name);
+		if(h == null){
+			h = new Histogram();
+			histograms.put(name, h);
+		}
+		h.observe(value);
+	}
+
+	/**
+	 * Set the gauges of the use of heap memory: the used, the committed and the highest used until now.
+	 */
+	public synchronized void recordHeap() {
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		setGauge("jmlok_heap_used_bytes", heap.getUsed());
+		setGauge("jmlok_heap_committed_bytes", heap.getCommitted());
+		Double peak = gauges.get("jmlok_heap_used_peak_bytes");
+		if(peak == null || heap.getUsed() > peak)
+			setGauge("jmlok_heap_used_peak_bytes", heap.getUsed());
+	}
+
+	/**
+	 * Return the value of a counter.
+	 * @param name The name of the counter.
+	 * @return the value of the counter, 0 if nothing was added to it.
+	 */
+	public synchronized long getCounter(String name) {
+		Long value = counters.get(name);
+		return (value == null) ? 0 : value;
+	}
+
+	/**
+	 * Return the value of a gauge.
+	 * @param name The name of the gauge.
+	 * @return the value of the gauge, null if it was never set.
+	 */
+	public synchronized Double getGauge(String name) {
+		return gauges.get(name);
+	}
+
+	/**
+	 * Return a histogram.
+	 * @param name The name of the histogram.
+	 * @return the histogram, null if no value was observed on it.
+	 */
+	public synchronized Histogram getHistogram(String name) {
+		return histograms.get(name);
+	}
+
+	/**
+	 * Return the metrics as a JSON object, with the counters, gauges and histograms by name.
+	 * @return the metrics as JSON.
+	 */
+	public synchronized String toJSON() {
+		StringBuilder json = new StringBuilder("{\n  \"counters\": {");
+		String separator = "";
+		for (Map.Entry<String, Long> e : counters.entrySet()) {
+			json.append(separator).append("\n    ").append(quote(e.getKey())).append(": ").append(e.getValue());
+			separator = ",";
+		}
+		json.append("\n  },\n  \"gauges\": {");
+		separator = "";
+		for (Map.Entry<String, Double> e : gauges.entrySet()) {
+			json.append(separator).append("\n    ").append(quote(e.getKey())).append(": ").append(format(e.getValue()));
+			separator = ",";
+		}
+		json.append("\n  },\n  \"histograms\": {");
+		separator = "";
+		for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+			Histogram h = e.getValue();
+			json.append(separator).append("\n    ").append(quote(e.getKey())).append(": {\"count\": ").append(h.count)
+				.append(", \"sum\": ").append(format(h.sum)).append(", \"buckets\": {");
+			for (int i = 0; i < SECONDS_BUCKETS.length; i++) {
+				json.append((i == 0) ? "" : ", ").append(quote(format(SECONDS_BUCKETS[i]))).append(": ").append(h.buckets[i]);
+			}
+			json.append("}}");
+			separator = ",";
+		}
+		return json.append("\n  }\n}\n").toString();
+	}
+
+	/**
+	 * Return the metrics in the text format of Prometheus.
+	 * @return the metrics in the text format of Prometheus.
+	 */
+	public synchronized String toPrometheus() {
+		StringBuilder text = new StringBuilder();
+		String lastType = null;
+		for (Map.Entry<String, Long> e : counters.entrySet()) {
+			lastType = appendType(text, lastType, baseName(e.getKey()), "counter");
+			text.append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+		}
+		for (Map.Entry<String, Double> e : gauges.entrySet()) {
+			lastType = appendType(text, lastType, baseName(e.getKey()), "gauge");
+			text.append(e.getKey()).append(' ').append(format(e.getValue())).append('\n');
+		}
+		for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+			String base = baseName(e.getKey());
+			String labels = e.getKey().substring(base.length());
+			String inner = (labels.isEmpty()) ? "" : labels.substring(1, labels.length() - 1) + ",";
+			Histogram h = e.getValue();
+			lastType = appendType(text, lastType, base, "histogram");
+			for (int i = 0; i < SECONDS_BUCKETS.length; i++) {
+				text.append(base).append("_bucket{").append(inner).append("le=\"").append(format(SECONDS_BUCKETS[i]))
+					.append("\"} ").append(h.buckets[i]).append('\n');
+			}
+			text.append(base).append("_bucket{").append(inner).append("le=\"+Inf\"} ").append(h.count).append('\n');
+			text.append(base).append("_sum").append(labels).append(' ').append(format(h.sum)).append('\n');
+			text.append(base).append("_count").append(labels).append(' ').append(h.count).append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Write the metrics to the files metrics.json and metrics.prom of a workspace.
+	 * @param workspace The workspace where the files will be written.
+	 * @throws IOException When the files could not be written.
+	 */
+	public void export(Workspace workspace) throws IOException {
+		write(new File(workspace.getMetricsJSON()), toJSON());
+		write(new File(workspace.getMetricsPrometheus()), toPrometheus());
+	}
+
+	private static void write(File file, String content) throws IOException {
+		FileWriter out = new FileWriter(file);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static String appendType(StringBuilder text, String lastType, String base, String type) {
+		if(!base.equals(lastType))
+			text.append("# TYPE ").append(base).append(' ').append(type).append('\n');
+		return base;
+	}
+
+	private static String baseName(String name) {
+		int brace = name.indexOf('{');
+		return (brace < 0) ? name : name.substring(0, brace);
+	}
+
+	private static String format(double value) {
+		if(value == Math.rint(value) && !Double.isInfinite(value))
+			return String.valueOf((long) value);
+		return String.format(Locale.ROOT, "%.6f", value).replaceAll("\\.?0+$", "");
+	}
+
+	private static String quote(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}
@@ -0,0 +1,382 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class used to run the external processes of the JMLOK tool, like Randoop. It limits how many processes
+ * run at the same time, pumps their output to a stream as it is produced, kills the processes that exceed
+ * their wall-clock or CPU time limits, and accounts the exit values and the resources used.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class ProcessSupervisor {
+
+	/**
+	 * Interval, in milliseconds, between two checks of the limits of a process.
+	 */
+	private static final long WATCHDOG_INTERVAL = 200;
+
+	private static final ProcessSupervisor SHARED = new ProcessSupervisor(Runtime.getRuntime().availableProcessors());
+
+	private final int maxProcesses;
+	private final Semaphore slots;
+	private final ExecutorService pumps;
+	private final AtomicInteger started = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private final AtomicInteger killed = new AtomicInteger();
+	private final AtomicLong wallMillis = new AtomicLong();
+	private final AtomicLong cpuMillis = new AtomicLong();
+
+	/**
+	 * Class that has the result of a process run by the supervisor.
+	 */
+	public static class Result {
+		private final int exitValue;
+		private final long wallMillis;
+		private final long cpuMillis;
+		private final String killedBy;
+
+		private Result(int exitValue, long wallMillis, long cpuMillis, String killedBy) {
+			this.exitValue = exitValue;
+			this.wallMillis = wallMillis;
+			this.cpuMillis = cpuMillis;
+			this.killedBy = killedBy;
+		}
+
+		/**
+		 * Get the exit value of the process.
+		 * @return the exit value of the process.
+		 */
+		public int getExitValue() {
+			return exitValue;
+		}
+
+		/**
+		 * Get the wall-clock time the process ran, from its start until it finished or was killed.
+		 * @return the wall-clock time, in milliseconds.
+		 */
+		public long getWallMillis() {
+			return wallMillis;
+		}
+
+		/**
+		 * Get the CPU time used by the process, or -1 when the operating system does not inform it.
+		 * @return the CPU time used, in milliseconds.
+		 */
+		public long getCpuMillis() {
+			return cpuMillis;
+		}
+
+		/**
+		 * Check if the process was killed for exceeding one of its limits.
+		 * @return true if the process was killed.
+		 */
+		public boolean isKilled() {
+			return killedBy != null;
+		}
+
+		/**
+		 * Get the limit that made the process be killed.
+		 * @return "wall-clock" or "CPU", or null when the process was not killed.
+		 */
+		public String getKilledBy() {
+			return killedBy;
+		}
+	}
+
+	/**
+	 * Creates a supervisor.
+	 * @param maxProcesses The maximum number of processes running at the same time.
+	 */
+	public ProcessSupervisor(int maxProcesses) {
+		this.maxProcesses = maxProcesses;
+		this.slots = new Semaphore(maxProcesses, true);
+		this.pumps = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "process-pump-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Return the supervisor shared by the detections of this JVM, which runs at most one process
+	 * by available processor.
+	 * @return the shared supervisor.
+	 */
+	public static ProcessSupervisor getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Split a command in its arguments, in the same way of Runtime.exec(String).
+	 * @param command The command.
+	 * @return the arguments of the command.
+	 */
+	public static String[] tokenize(String command) {
+		StringTokenizer st = new StringTokenizer(command);
+		String[] cmdarray = new String[st.countTokens()];
+		for (int i = 0; st.hasMoreTokens(); i++) {
+			cmdarray[i] = st.nextToken();
+		}
+		return cmdarray;
+	}
+
+	/**
+	 * Run a process, waiting for a free slot when the maximum number of processes are running. Its
+	 * standard and error outputs are written to the output stream as they are produced.
+	 * @param command The command and its arguments.
+	 * @param directory The working directory of the process, or null to use the current one.
+	 * @param output Where the output of the process will be written.
+	 * @param wallClockLimit The maximum time, in milliseconds, the process may run (0 for no limit).
+	 * @param cpuLimit The maximum CPU time, in milliseconds, the process may use (0 for no limit).
+	 * @return the result of the process.
+	 * @throws IOException When the process could not be started.
+	 * @throws InterruptedException When interrupted while waiting; the process is killed.
+	 */
+	public Result run(String[] command, File directory, final OutputStream output, long wallClockLimit,
+			long cpuLimit) throws IOException, InterruptedException {
+		slots.acquire();
+		try {
+			ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+			if(directory != null)
+				builder.directory(directory);
+			final Process proc = builder.start();
+			started.incrementAndGet();
+			long start = System.currentTimeMillis();
+			Future<?> pump = pumps.submit(new Runnable() {
+				@Override
+				public void run() {
+					pump(proc.getInputStream(), output);
+				}
+			});
+			String killedBy = null;
+			long cpu = -1;
+			try {
+				while (!proc.waitFor(WATCHDOG_INTERVAL, TimeUnit.MILLISECONDS)) {
+					cpu = getCpuMillis(proc, cpu);
+					if(wallClockLimit > 0 && System.currentTimeMillis() - start > wallClockLimit)
+						killedBy = "wall-clock";
+					else if(cpuLimit > 0 && cpu > cpuLimit)
+						killedBy = "CPU";
+					if(killedBy != null){
+						kill(proc);
+						killed.incrementAndGet();
+						break;
+					}
+				}
+				proc.waitFor();
+			} catch (InterruptedException e) {
+				kill(proc);
+				throw e;
+			}
+			try {
+				pump.get();
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+			}
+			long wall = System.currentTimeMillis() - start;
+			wallMillis.addAndGet(wall);
+			if(cpu >= 0)
+				cpuMillis.addAndGet(cpu);
+			if(proc.exitValue() != 0)
+				failed.incrementAndGet();
+			return new Result(proc.exitValue(), wall, cpu, killedBy);
+		} finally {
+			slots.release();
+		}
+	}
+
+	/**
+	 * Run a job on a process already started and kept alive between jobs, like a warm worker JVM, waiting
+	 * for a free slot when the maximum number of processes are running. The job is accounted as a process,
+	 * with the wall-clock and CPU time used by the process while the job runs, and the process is killed
+	 * when the job exceeds the limits; the job must then return an exit value different from 0.
+	 * @param proc The process that runs the job.
+	 * @param job The job, that returns its exit value.
+	 * @param wallClockLimit The maximum time, in milliseconds, the job may run (0 for no limit).
+	 * @param cpuLimit The maximum CPU time, in milliseconds, the job may use (0 for no limit).
+	 * @return the result of the job.
+	 * @throws Exception When the job fails, or when interrupted while waiting; the process is killed.
+	 */
+	public Result supervise(final Process proc, Callable<Integer> job, final long wallClockLimit,
+			final long cpuLimit) throws Exception {
+		slots.acquire();
+		try {
+			started.incrementAndGet();
+			final long start = System.currentTimeMillis();
+			final long cpuStart = getCpuMillis(proc, -1);
+			final AtomicLong cpu = new AtomicLong(-1);
+			final String[] killedBy = new String[1];
+			Future<?> watchdog = pumps.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (proc.isAlive()) {
+							Thread.sleep(WATCHDOG_INTERVAL);
+							long now = getCpuMillis(proc, -1);
+							if(now >= 0 && cpuStart >= 0)
+								cpu.set(now - cpuStart);
+							String limit = null;
+							if(wallClockLimit > 0 && System.currentTimeMillis() - start > wallClockLimit)
+								limit = "wall-clock";
+							else if(cpuLimit > 0 && cpu.get() > cpuLimit)
+								limit = "CPU";
+							if(limit != null){
+								synchronized (killedBy) {
+									killedBy[0] = limit;
+								}
+								kill(proc);
+								killed.incrementAndGet();
+								return;
+							}
+						}
+					} catch (InterruptedException e) {
+						// The job finished.
+					}
+				}
+			});
+			int exitValue;
+			try {
+				exitValue = job.call();
+			} catch (InterruptedException e) {
+				kill(proc);
+				throw e;
+			} finally {
+				watchdog.cancel(true);
+			}
+			long now = getCpuMillis(proc, -1);
+			if(now >= 0 && cpuStart >= 0)
+				cpu.set(now - cpuStart);
+			long wall = System.currentTimeMillis() - start;
+			wallMillis.addAndGet(wall);
+			if(cpu.get() >= 0)
+				cpuMillis.addAndGet(cpu.get());
+			if(exitValue != 0)
+				failed.incrementAndGet();
+			synchronized (killedBy) {
+				return new Result(exitValue, wall, cpu.get(), killedBy[0]);
+			}
+		} finally {
+			slots.release();
+		}
+	}
+
+	/**
+	 * Copy the output of a process, by chunks, until it ends.
+	 */
+	private static void pump(InputStream in, OutputStream out) {
+		byte[] buffer = new byte[8192];
+		try {
+			try {
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+				}
+				out.flush();
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Return the CPU time used by a process until now, or the last value known when the operating system
+	 * does not inform it anymore.
+	 */
+	private static long getCpuMillis(Process proc, long last) {
+		Optional<Duration> cpu = proc.toHandle().info().totalCpuDuration();
+		return cpu.isPresent() ? cpu.get().toMillis() : last;
+	}
+
+	/**
+	 * Kill a process and the processes it started.
+	 */
+	private static void kill(Process proc) {
+		Iterator<ProcessHandle> descendants = proc.toHandle().descendants().iterator();
+		while (descendants.hasNext()) {
+			descendants.next().destroyForcibly();
+		}
+		proc.destroyForcibly();
+	}
+
+	/**
+	 * Get the number of processes that may run at the same time.
+	 * @return the maximum number of processes running.
+	 */
+	public int getMaxProcesses() {
+		return maxProcesses;
+	}
+
+	/**
+	 * Get the number of processes running now.
+	 * @return the number of processes running.
+	 */
+	public int getRunning() {
+		return maxProcesses - slots.availablePermits();
+	}
+
+	/**
+	 * Get the number of processes started until now.
+	 * @return the number of processes started.
+	 */
+	public int getStarted() {
+		return started.get();
+	}
+
+	/**
+	 * Get the number of processes that finished with an exit value different from 0, the killed ones too.
+	 * @return the number of processes failed.
+	 */
+	public int getFailed() {
+		return failed.get();
+	}
+
+	/**
+	 * Get the number of processes killed for exceeding one of their limits.
+	 * @return the number of processes killed.
+	 */
+	public int getKilled() {
+		return killed.get();
+	}
+
+	/**
+	 * Get the sum of the wall-clock times of the processes finished.
+	 * @return the sum of the wall-clock times, in milliseconds.
+	 */
+	public long getWallMillis() {
+		return wallMillis.get();
+	}
+
+	/**
+	 * Get the sum of the CPU times of the processes finished, of those whose CPU time is informed by
+	 * the operating system.
+	 * @return the sum of the CPU times, in milliseconds.
+	 */
+	public long getCpuMillis() {
+		return cpuMillis.get();
+	}
+}
@@ -0,0 +1,232 @@
+package utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Class that indexes a test file generated by Randoop, so the lines of the file can be read without
+ * scanning it from the top again. The file is memory-mapped (read to memory on Windows, where a mapped
+ * file cannot be deleted while the mapping lives), the offset where each line starts is kept on an array,
+ * and the line where each test method is declared is kept on a map. The indexes of the last files used
+ * are kept, and an index is built again when its file changes.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class TestSourceIndex {
+
+	/**
+	 * Number of indexes kept.
+	 */
+	private static final int CACHE_SIZE = 8;
+
+	private static final Map<String, TestSourceIndex> CACHE = new LinkedHashMap<String, TestSourceIndex>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, TestSourceIndex> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private static final int NOT_FOUND = -1;
+	private static final String METHOD_DECLARATION = "public void ";
+
+	private final long length;
+	private final long lastModified;
+	private final ByteBuffer content;
+	private final int[] lineOffsets;
+	private final int lineCount;
+	private final Map<String, Integer> methods = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * Creates the index of a file.
+	 * @param file The test file.
+	 * @throws IOException When the file could not be read.
+	 */
+	private TestSourceIndex(File file) throws IOException {
+		this.length = file.length();
+		this.lastModified = file.lastModified();
+		if(length > Integer.MAX_VALUE)
+			throw new IOException("The file " + file.getName() + " is too large to be indexed.");
+		if(System.getProperty("os.name").contains("Windows")){
+			content = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		}else{
+			FileInputStream in = new FileInputStream(file);
+			try {
+				content = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+			} finally {
+				in.close();
+			}
+		}
+		int[] offsets = new int[1024];
+		int lines = 0;
+		int size = content.limit();
+		int start = 0;
+		for (int i = 0; i < size; i++) {
+			byte b = content.get(i);
+			if(b == '\n' || b == '\r'){
+				if(b == '\r' && i + 1 < size && content.get(i + 1) == '\n')
+					i++;
+				if(lines + 1 >= offsets.length)
+					offsets = grow(offsets);
+				offsets[lines++] = start;
+				start = i + 1;
+			}
+		}
+		if(start < size){
+			if(lines + 1 >= offsets.length)
+				offsets = grow(offsets);
+			offsets[lines++] = start;
+		}
+		offsets[lines] = size;
+		this.lineOffsets = offsets;
+		this.lineCount = lines;
+		indexMethods();
+	}
+
+	private static int[] grow(int[] offsets) {
+		int[] larger = new int[offsets.length * 2];
+		System.arraycopy(offsets, 0, larger, 0, offsets.length);
+		return larger;
+	}
+
+	/**
+	 * Keeps the first line where each method without parameters is declared.
+	 */
+	private void indexMethods() {
+		Map<String, Integer> found = new HashMap<String, Integer>();
+		for (int line = 1; line <= lineCount; line++) {
+			String text = getLine(line);
+			int declaration = text.indexOf(METHOD_DECLARATION);
+			while (declaration != -1) {
+				int nameStart = declaration + METHOD_DECLARATION.length();
+				int parenthesis = text.indexOf('(', nameStart);
+				if(parenthesis != -1 && text.startsWith("()", parenthesis)){
+					String name = text.substring(nameStart, parenthesis);
+					if(!found.containsKey(name))
+						found.put(name, line);
+				}
+				declaration = text.indexOf(METHOD_DECLARATION, nameStart);
+			}
+		}
+		methods.putAll(found);
+	}
+
+	/**
+	 * Return the index of a file, building it when the file was not indexed yet or changed since it was.
+	 * @param file The test file.
+	 * @return the index of the file.
+	 * @throws IOException When the file could not be read.
+	 */
+	public static TestSourceIndex forFile(File file) throws IOException {
+		String key = file.getAbsolutePath();
+		synchronized (CACHE) {
+			TestSourceIndex index = CACHE.get(key);
+			if(index != null && index.length == file.length() && index.lastModified == file.lastModified())
+				return index;
+		}
+		if(!file.isFile())
+			throw new IOException("The file " + file.getAbsolutePath() + " does not exist.");
+		TestSourceIndex index = new TestSourceIndex(file);
+		synchronized (CACHE) {
+			CACHE.put(key, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Discard the indexes kept.
+	 */
+	public static void clear() {
+		synchronized (CACHE) {
+			CACHE.clear();
+		}
+	}
+
+	/**
+	 * Return the number of lines of the file.
+	 * @return the number of lines.
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Return a line of the file, without its line terminator.
+	 * @param line The number of the line, from 1.
+	 * @return the text of the line.
+	 */
+	public String getLine(int line) {
+		int start = lineOffsets[line - 1];
+		int end = lineOffsets[line];
+		if(end > start && content.get(end - 1) == '\n')
+			end--;
+		if(end > start && content.get(end - 1) == '\r')
+			end--;
+		byte[] bytes = new byte[end - start];
+		ByteBuffer view = content.duplicate();
+		view.position(start);
+		view.get(bytes);
+		return new String(bytes, Charset.defaultCharset());
+	}
+
+	/**
+	 * Return the first line that declares a test method.
+	 * @param test The name of the test method.
+	 * @return the number of the line, from 1, or -1 when the method is not declared on the file.
+	 */
+	public int getMethodLine(String test) {
+		Integer line = methods.get(test);
+		if(line == null){
+			// Names that the index could not take from the declarations are searched line by line once.
+			String declaration = METHOD_DECLARATION + test + "()";
+			line = NOT_FOUND;
+			for (int i = 1; i <= lineCount && line == NOT_FOUND; i++) {
+				if(getLine(i).contains(declaration))
+					line = i;
+			}
+			methods.put(test, line);
+		}
+		return line;
+	}
+
+	/**
+	 * Returns copy of line in method to highlight in test cases whom discovered specified error. Only the
+	 * lines between the declaration of the test method and the line desired are read.
+	 * @param wishedLine The line of the file where the error was founded.
+	 * @param test The name of the test method.
+	 * @param arr Array containing the number of occurrences of the line that originated error, before it,
+	 * on the test method.
+	 * @return copy of line that originated error, or an empty String when the file has no such line.
+	 */
+	public String lineSampleWhoOriginatedError(int wishedLine, String test, int[] arr) {
+		String declaration = METHOD_DECLARATION + test + "()";
+		if(wishedLine < 1 || wishedLine > lineCount)
+			return "";
+		String line = getLine(wishedLine);
+		if(line.contains(declaration))
+			return "";
+		StringBuilder testExtract = new StringBuilder();
+		int methodLine = getMethodLine(test);
+		if(methodLine != NOT_FOUND){
+			for (int i = methodLine + 1; i < wishedLine; i++) {
+				String previous = getLine(i);
+				if(!previous.contains(declaration))
+					testExtract.append(previous);
+			}
+		}
+		arr[0] = StringUtils.countMatches(testExtract.toString(), line);
+		return line;
+	}
+}
@@ -0,0 +1,197 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Class that storage the paths of the folders and files used by one execution of the JMLOK tool.
+ * Each workspace has its own root directory, so several detections can run at the same time on
+ * the same machine. The default workspace uses the paths of {@link Constants}.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class Workspace {
+
+	private static final Workspace DEFAULT = new Workspace(Constants.TEMP_DIR);
+
+	private final String root;
+
+	/**
+	 * Creates a workspace on the root directory received.
+	 * @param root = the path to root directory of the workspace.
+	 */
+	public Workspace(String root) {
+		this.root = root;
+	}
+
+	/**
+	 * Returns the workspace shared by the executions that do not use one of their own, whose
+	 * paths are the ones of {@link Constants}.
+	 * @return the default workspace.
+	 */
+	public static Workspace getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Creates a workspace on a new directory, inside the temporary directory of the System.
+	 * @return the workspace created.
+	 * @throws IOException When the directory could not be created.
+	 */
+	public static Workspace createUnique() throws IOException {
+		File tempDir = new File(System.getProperty("java.io.tmpdir"));
+		return new Workspace(Files.createTempDirectory(tempDir.toPath(), "jmlOK-").toFile().getAbsolutePath());
+	}
+
+	/**
+	 * Removes the root directory of this workspace and all its content.
+	 */
+	public void delete() {
+		ClassMetadataCache.remove(this);
+		FileUtils.deleteQuietly(new File(root));
+	}
+
+	/**
+	 * Returns the path of the root directory of this workspace.
+	 * @return the path of the root directory.
+	 */
+	public String getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns the path of the folder where the source files are compiled.
+	 * @return the path of the folder of the compiled source files.
+	 */
+	public String getSourceBin() {
+		return root + Constants.FILE_SEPARATOR + "bin";
+	}
+
+	/**
+	 * Returns the path of the folder where the source files are compiled by the JML compiler.
+	 * @return the path of the folder of the classes compiled by the JML compiler.
+	 */
+	public String getJmlBin() {
+		return root + Constants.FILE_SEPARATOR + "jmlBin";
+	}
+
+	/**
+	 * Returns the path of the folder that keeps the tests generated and their compiled classes.
+	 * @return the path of the folder of the tests.
+	 */
+	public String getTests() {
+		return root + Constants.FILE_SEPARATOR + "tests";
+	}
+
+	/**
+	 * Returns the path of the folder where the tests are generated.
+	 * @return the path of the folder of the test source files.
+	 */
+	public String getTestDir() {
+		return getTests() + Constants.FILE_SEPARATOR + "src";
+	}
+
+	/**
+	 * Returns the path of the folder where the tests are compiled.
+	 * @return the path of the folder of the compiled tests.
+	 */
+	public String getTestBin() {
+		return getTests() + Constants.FILE_SEPARATOR + "bin";
+	}
+
+	/**
+	 * Returns the path of the file that has the content hash of the source files compiled, for incremental compilation.
+	 * @return the path of the manifest of the source files.
+	 */
+	public String getSourceManifest() {
+		return root + Constants.FILE_SEPARATOR + "sources.manifest";
+	}
+
+	/**
+	 * Returns the path of the file that has the stages of the detection already done.
+	 * @return the path of the checkpoint file.
+	 */
+	public String getCheckpoint() {
+		return root + Constants.FILE_SEPARATOR + "checkpoint.manifest";
+	}
+
+	/**
+	 * Returns the path of the file that has the class names.
+	 * @return the path of the file of class names.
+	 */
+	public String getClasses() {
+		return root + Constants.FILE_SEPARATOR + "classes.txt";
+	}
+
+	/**
+	 * Returns the path of the file that has the contracts of each class.
+	 * @return the path of the file of contracts.
+	 */
+	public String getContracts() {
+		return root + Constants.FILE_SEPARATOR + "contracts.txt";
+	}
+
+	/**
+	 * Returns the path of the file that has the time to tests generation spent on each class.
+	 * @return the path of the file of the generation budget.
+	 */
+	public String getGenerationBudget() {
+		return root + Constants.FILE_SEPARATOR + "budget.txt";
+	}
+
+	/**
+	 * Returns the path of the test file generated by Randoop.
+	 * @return the path of the test file.
+	 */
+	public String getTestFile() {
+		return getTestDir() + Constants.FILE_SEPARATOR + "RandoopTest0.java";
+	}
+
+	/**
+	 * Returns the path of the file with the results of the tests execution.
+	 * @return the path of the file of test results.
+	 */
+	public String getTestResults() {
+		return getTestDir() + Constants.FILE_SEPARATOR + "TEST-RandoopTest.xml";
+	}
+
+	/**
+	 * Returns the path of the file that has the nonconformances detected by the tool.
+	 * @return the path of the file of results.
+	 */
+	public String getResults() {
+		return root + Constants.FILE_SEPARATOR + "results.xml";
+	}
+
+	/**
+	 * Returns the path of the folder that has the log of each stage of the detection.
+	 * @return the path of the folder of logs.
+	 */
+	public String getLogs() {
+		return root + Constants.FILE_SEPARATOR + "logs";
+	}
+
+	/**
+	 * Returns the path of the file with the metrics of the execution, in JSON.
+	 * @return the path of the JSON metrics file.
+	 */
+	public String getMetricsJSON() {
+		return root + Constants.FILE_SEPARATOR + "metrics.json";
+	}
+
+	/**
+	 * Returns the path of the file with the metrics of the execution, in the Prometheus text format.
+	 * @return the path of the Prometheus metrics file.
+	 */
+	public String getMetricsPrometheus() {
+		return root + Constants.FILE_SEPARATOR + "metrics.prom";
+	}
+
+	@Override
+	public String toString() {
+		return root;
+	}
+}
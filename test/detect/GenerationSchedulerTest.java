@@ -0,0 +1,104 @@
+package detect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Checks of the split of the time to tests generation done by GenerationScheduler.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class GenerationSchedulerTest {
+
+	@Test
+	public void firstRoundGivesTheShortestSliceToEachClass() {
+		GenerationScheduler scheduler = new GenerationScheduler(Arrays.asList("A", "B", "C"), 100, 30, 5, 2);
+		Map<String, Integer> slices = scheduler.nextRound();
+		assertEquals(3, slices.size());
+		for (int slice : slices.values()) {
+			assertEquals(5, slice);
+		}
+		assertEquals(1, scheduler.getRound());
+	}
+
+	@Test
+	public void roundIsSplitByTheRateOfNewNonconformances() {
+		GenerationScheduler scheduler = new GenerationScheduler(Arrays.asList("A", "B"), 1000, 30, 5, 2);
+		scheduler.nextRound();
+		scheduler.record("A", 5, 4);
+		scheduler.record("B", 5, 0);
+		Map<String, Integer> slices = scheduler.nextRound();
+		// Each class receives 5s and the other 20s are split by the scores, A = (4 + 0.25) / 5 and B = 0.25 / 5.
+		assertEquals(23, (int) slices.get("A"));
+		assertEquals(6, (int) slices.get("B"));
+	}
+
+	@Test
+	public void roundDoesNotExceedTheRoundBudget() {
+		GenerationScheduler scheduler = new GenerationScheduler(Arrays.asList("A", "B", "C"), 1000, 30, 5, 5);
+		for (int r = 0; r < 4; r++) {
+			Map<String, Integer> slices = scheduler.nextRound();
+			int total = 0;
+			for (Map.Entry<String, Integer> e : slices.entrySet()) {
+				total += e.getValue();
+				scheduler.record(e.getKey(), e.getValue(), e.getKey().equals("A") ? 3 : 1);
+			}
+			assertTrue(total <= 30);
+		}
+	}
+
+	@Test
+	public void eachClassReceivesTheShortestSliceWhenTheRoundBudgetIsShort() {
+		GenerationScheduler scheduler = new GenerationScheduler(Arrays.asList("A", "B", "C"), 1000, 10, 5, 2);
+		scheduler.nextRound();
+		scheduler.record("A", 5, 2);
+		scheduler.record("B", 5, 1);
+		scheduler.record("C", 5, 0);
+		Map<String, Integer> slices = scheduler.nextRound();
+		assertEquals(3, slices.size());
+		for (int slice : slices.values()) {
+			assertEquals(5, slice);
+		}
+	}
+
+	@Test
+	public void classWithoutNewNonconformancesIsSaturatedAfterThePatience() {
+		GenerationScheduler scheduler = new GenerationScheduler(Arrays.asList("A", "B"), 1000, 30, 5, 2);
+		scheduler.nextRound();
+		scheduler.record("A", 5, 1);
+		scheduler.record("B", 5, 0);
+		Map<String, Integer> slices = scheduler.nextRound();
+		assertTrue(slices.containsKey("B"));
+		scheduler.record("A", slices.get("A"), 1);
+		scheduler.record("B", slices.get("B"), 0);
+		slices = scheduler.nextRound();
+		assertTrue(slices.containsKey("A"));
+		assertFalse(slices.containsKey("B"));
+		assertTrue(scheduler.getReport().contains("B;13;2;0;true"));
+	}
+
+	@Test
+	public void generationEndsWhenAllClassesAreSaturated() {
+		GenerationScheduler scheduler = new GenerationScheduler(Arrays.asList("A"), 1000, 30, 5, 1);
+		scheduler.nextRound();
+		scheduler.record("A", 5, 0);
+		assertTrue(scheduler.nextRound().isEmpty());
+	}
+
+	@Test
+	public void generationEndsWhenTheBudgetIsSpent() {
+		GenerationScheduler scheduler = new GenerationScheduler(Arrays.asList("A", "B"), 12, 30, 5, 3);
+		Map<String, Integer> slices = scheduler.nextRound();
+		assertEquals(2, slices.size());
+		scheduler.record("A", 5, 1);
+		scheduler.record("B", 5, 1);
+		assertTrue(scheduler.nextRound().isEmpty());
+		assertEquals(10, scheduler.getSpent());
+	}
+}
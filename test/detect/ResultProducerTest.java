@@ -0,0 +1,141 @@
+package detect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import utils.Constants;
+import utils.Workspace;
+
+/**
+ * Checks of the nonconformances read from the JUnit result files.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class ResultProducerTest {
+
+	private static final String POSTCONDITION = "org.jmlspecs.jmlrac.runtime.JMLExitNormalPostconditionError";
+
+	private File dir;
+
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("jmlOK-results").toFile();
+	}
+
+	@After
+	public void deleteDirectory() {
+		FileUtils.deleteQuietly(dir);
+	}
+
+	/**
+	 * Write a JUnit result file with the testcases received.
+	 */
+	static File writeReport(File dir, String name, String... testcases) throws IOException {
+		StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+		xml.append("<testsuite errors=\"0\" failures=\"0\" name=\"RandoopTest\" tests=\"").append(testcases.length).append("\" time=\"0.5\">\n");
+		for (String testcase : testcases) {
+			xml.append(testcase).append('\n');
+		}
+		xml.append("</testsuite>\n");
+		File report = new File(dir, name);
+		FileUtils.writeStringToFile(report, xml.toString(), "UTF-8");
+		return report;
+	}
+
+	/**
+	 * A testcase of RandoopTest0 that ends with an error thrown by a method of a class of package p.
+	 */
+	static String errorTestcase(String test, String type, String clazz, String method, int testLine) {
+		String message = "by method " + clazz + "." + method + " regarding code in File &quot;"
+				+ clazz + ".java&quot;, line 12, character 5 (" + clazz + ".java:12), when";
+		return "  <testcase classname=\"RandoopTest0\" name=\"" + test + "\" time=\"0.01\">\n"
+				+ "    <error message=\"" + message + "\" type=\"" + type + "\">" + type + ": " + message + "\n"
+				+ "\tat p." + clazz + "." + method + "(" + clazz + ".java:12)\n"
+				+ "\tat RandoopTest0." + test + "(RandoopTest0.java:" + testLine + ")\n"
+				+ "</error>\n  </testcase>";
+	}
+
+	/**
+	 * Read the errors of a result file as the DOM parser did before the file was read as a stream.
+	 */
+	private List<TestError> readWithDOM(File report) throws Exception {
+		List<TestError> errors = new ArrayList<TestError>();
+		NodeList list = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(report)
+				.getDocumentElement().getElementsByTagName("testcase");
+		for (int i = 0; i < list.getLength(); i++) {
+			Element testcase = (Element) list.item(i);
+			NodeList problems = testcase.getElementsByTagName("error");
+			for (int j = 0; j < problems.getLength(); j++) {
+				Element problem = (Element) problems.item(j);
+				TestError te = new TestError(testcase.getAttribute("name"), testcase.getAttribute("classname") + ".java",
+						problem.getAttribute("message"), problem.getAttribute("type"), problem.getFirstChild().toString());
+				if (te.isNonconformance())
+					errors.add(te);
+			}
+		}
+		return errors;
+	}
+
+	private void assertSameError(TestError expected, TestError actual) {
+		assertEquals(expected.getType(), actual.getType());
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getTestFile(), actual.getTestFile());
+		assertEquals(expected.getMessage(), actual.getMessage());
+		assertEquals(expected.getClassName(), actual.getClassName());
+		assertEquals(expected.getMethodName(), actual.getMethodName());
+		assertEquals(expected.getPackageName(), actual.getPackageName());
+		assertEquals(expected.getNumberRevealsNC(), actual.getNumberRevealsNC());
+		assertEquals(expected.getLineOfErrorInJava(), actual.getLineOfErrorInJava());
+	}
+
+	@Test
+	public void streamedErrorsAreTheOnesOfTheDOMParser() throws Exception {
+		File report = writeReport(dir, "TEST-RandoopTest.xml",
+				"  <testcase classname=\"RandoopTest0\" name=\"test1\" time=\"0.01\" />",
+				errorTestcase("test2", POSTCONDITION, "Stack", "push", 20),
+				"  <testcase classname=\"RandoopTest0\" name=\"test3\" time=\"0.01\">\n"
+						+ "    <error message=\"null\" type=\"java.lang.NullPointerException\">java.lang.NullPointerException\n"
+						+ "\tat RandoopTest0.test3(RandoopTest0.java:30)\n</error>\n  </testcase>");
+		List<TestError> expected = readWithDOM(report);
+		assertEquals(1, expected.size());
+		ResultProducer producer = new ResultProducer(new Workspace(dir.getAbsolutePath()));
+		Set<TestError> errors = producer.listErrors(Constants.JMLC_COMPILER, Arrays.asList(report));
+		assertEquals(1, errors.size());
+		TestError actual = errors.iterator().next();
+		assertSameError(expected.get(0), actual);
+		assertEquals("Stack", actual.getClassName());
+		assertEquals("push", actual.getMethodName());
+		assertEquals("p", actual.getPackageName());
+		assertEquals(20, actual.getNumberRevealsNC());
+		assertEquals(12, actual.getLineOfErrorInJava());
+		assertEquals(3, producer.getTestsExecuted());
+		assertEquals(2, producer.getErrorsParsed());
+	}
+
+	@Test
+	public void errorsOfTheSameNonconformanceAreCountedOnce() throws Exception {
+		File report = writeReport(dir, "TEST-RandoopTest.xml",
+				errorTestcase("test1", POSTCONDITION, "Stack", "push", 20),
+				errorTestcase("test2", POSTCONDITION, "Stack", "push", 40),
+				errorTestcase("test3", POSTCONDITION, "Stack", "pop", 50));
+		ResultProducer producer = new ResultProducer(new Workspace(dir.getAbsolutePath()));
+		assertEquals(2, producer.listErrors(Constants.JMLC_COMPILER, Arrays.asList(report)).size());
+		assertEquals(2, producer.getNCTotal());
+	}
+}
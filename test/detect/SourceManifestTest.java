@@ -0,0 +1,97 @@
+package detect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks of the detection of the source files changed, removed and affected between two compilations.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class SourceManifestTest {
+
+	private File sourceFolder;
+
+	@Before
+	public void createSourceFolder() throws IOException {
+		sourceFolder = Files.createTempDirectory("jmlOK-manifest").toFile();
+		write("p/A.java", "package p; public class A { public static final int N = 1; }");
+		write("p/B.java", "package p; public class B extends A { }");
+		write("p/C.java", "package p; public class C { int n = new B().hashCode(); }");
+		write("q/D.java", "package q; public class D { }");
+	}
+
+	@After
+	public void deleteSourceFolder() {
+		FileUtils.deleteQuietly(sourceFolder);
+	}
+
+	private void write(String file, String content) throws IOException {
+		FileUtils.writeStringToFile(new File(sourceFolder, file), content, "UTF-8");
+	}
+
+	private SourceManifest scan() throws IOException {
+		return SourceManifest.scan(sourceFolder.getAbsolutePath(), "classpath");
+	}
+
+	@Test
+	public void unchangedSourcesHaveNothingChanged() throws IOException {
+		SourceManifest previous = scan();
+		SourceManifest current = scan();
+		assertEquals(Collections.emptyList(), current.changedFrom(previous));
+		assertEquals(Collections.emptyList(), current.removedFrom(previous));
+	}
+
+	@Test
+	public void editedAndNewFilesAreChanged() throws IOException {
+		SourceManifest previous = scan();
+		write("p/A.java", "package p; public class A { public static final int N = 2; }");
+		write("q/E.java", "package q; public class E { }");
+		SourceManifest current = scan();
+		assertEquals(Arrays.asList("p/A.java", "q/E.java"), current.changedFrom(previous));
+		assertEquals(Collections.emptyList(), current.removedFrom(previous));
+	}
+
+	@Test
+	public void deletedFilesAreRemoved() throws IOException {
+		SourceManifest previous = scan();
+		new File(sourceFolder, "q/D.java").delete();
+		SourceManifest current = scan();
+		assertEquals(Collections.emptyList(), current.changedFrom(previous));
+		assertEquals(Arrays.asList("q/D.java"), current.removedFrom(previous));
+		assertNull(current.getHash("q/D.java"));
+	}
+
+	@Test
+	public void savedManifestIsLoadedBack() throws IOException {
+		SourceManifest manifest = scan();
+		File file = new File(sourceFolder, "sources.manifest");
+		manifest.save(file);
+		SourceManifest loaded = SourceManifest.load(file);
+		assertEquals("classpath", loaded.getClasspath());
+		assertEquals(manifest.getFiles(), loaded.getFiles());
+		assertEquals(manifest.getFingerprint(), loaded.getFingerprint());
+		assertNull(SourceManifest.load(new File(sourceFolder, "none.manifest")));
+	}
+
+	@Test
+	public void dependentsAreFoundTransitively() throws IOException {
+		// C does not name A, but it depends on A through B.
+		assertEquals(new HashSet<String>(Arrays.asList("p/B.java", "p/C.java")),
+				scan().dependentsOf(sourceFolder.getAbsolutePath(), Arrays.asList("p/A.java")));
+		assertTrue(scan().dependentsOf(sourceFolder.getAbsolutePath(), Arrays.asList("q/D.java")).isEmpty());
+	}
+}
@@ -0,0 +1,89 @@
+package detect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks of the stages of a detection recorded, saved and loaded by StageCheckpoint.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class StageCheckpointTest {
+
+	private File dir;
+
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("jmlOK-checkpoint").toFile();
+	}
+
+	@After
+	public void deleteDirectory() {
+		FileUtils.deleteQuietly(dir);
+	}
+
+	private StageCheckpoint completed(String... stages) {
+		StageCheckpoint checkpoint = new StageCheckpoint();
+		for (String stage : stages) {
+			checkpoint.complete(stage, stage.toLowerCase() + "-inputs");
+		}
+		return checkpoint;
+	}
+
+	@Test
+	public void stageIsCompleteOnlyWithTheSameInputs() {
+		StageCheckpoint checkpoint = completed("COMPILATION");
+		assertTrue(checkpoint.isComplete("COMPILATION", "compilation-inputs"));
+		assertFalse(checkpoint.isComplete("COMPILATION", "other-inputs"));
+		assertFalse(checkpoint.isComplete("GENERATION", "generation-inputs"));
+	}
+
+	@Test
+	public void savedCheckpointIsLoadedInTheSameOrder() throws IOException {
+		File file = new File(dir, "checkpoint.manifest");
+		completed("JAVA", "JML", "GENERATION", "RUN").save(file);
+		StageCheckpoint loaded = StageCheckpoint.load(file);
+		assertEquals(Arrays.asList("JAVA", "JML", "GENERATION", "RUN"), loaded.getStages());
+		assertTrue(loaded.isComplete("GENERATION", "generation-inputs"));
+		assertFalse(new File(dir, "checkpoint.manifest.tmp").exists());
+	}
+
+	@Test
+	public void missingOrUnreadableCheckpointIsEmpty() throws IOException {
+		assertEquals(Collections.emptyList(), StageCheckpoint.load(new File(dir, "none.manifest")).getStages());
+		File dirAsFile = new File(dir, "dir.manifest");
+		dirAsFile.mkdir();
+		assertEquals(Collections.emptyList(), StageCheckpoint.load(dirAsFile).getStages());
+	}
+
+	@Test
+	public void completingAStageAgainDiscardsTheStagesAfterIt() {
+		StageCheckpoint checkpoint = completed("JAVA", "JML", "GENERATION", "RUN");
+		checkpoint.complete("JML", "new-inputs");
+		assertEquals(Arrays.asList("JAVA", "JML"), checkpoint.getStages());
+		assertTrue(checkpoint.isComplete("JML", "new-inputs"));
+	}
+
+	@Test
+	public void clearFromDiscardsTheStageAndTheOnesAfterIt() {
+		StageCheckpoint checkpoint = completed("JAVA", "JML", "GENERATION");
+		checkpoint.clearFrom("OTHER");
+		assertEquals(Arrays.asList("JAVA", "JML", "GENERATION"), checkpoint.getStages());
+		checkpoint.clearFrom("JML");
+		assertEquals(Arrays.asList("JAVA"), checkpoint.getStages());
+		checkpoint.clear();
+		assertEquals(Collections.emptyList(), checkpoint.getStages());
+	}
+}
@@ -0,0 +1,109 @@
+package detect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks of the deduplication and of the counts of the test errors kept by TestErrorIndex.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class TestErrorIndexTest {
+
+	private static final String POSTCONDITION = "org.jmlspecs.jmlrac.runtime.JMLExitNormalPostconditionError";
+
+	/**
+	 * A postcondition error thrown by a method of a class, as read from the JUnit result file.
+	 */
+	private static TestError error(String pkg, String clazz, String method) {
+		String message = "by method " + clazz + "." + method + " regarding code in File \"" + clazz
+				+ ".java\", line 12, character 5 (" + clazz + ".java:12), when";
+		String details = "[#text: " + POSTCONDITION + ": " + message + "\n\tat " + pkg + "." + clazz + "." + method
+				+ "(" + clazz + ".java:12)\n\tat RandoopTest0.test1(RandoopTest0.java:20)\n]";
+		return new TestError("test1", "RandoopTest0.java", message, POSTCONDITION, details);
+	}
+
+	@Test
+	public void sameErrorIsKeptOnceWithItsOccurrences() {
+		TestErrorIndex index = new TestErrorIndex();
+		assertTrue(index.add(error("p", "Stack", "push")));
+		assertFalse(index.add(error("p", "Stack", "push")));
+		assertFalse(index.add(error("P", "STACK", "Push")));
+		assertEquals(1, index.size());
+		assertEquals(3, index.getOccurrences(error("p", "stack", "PUSH")));
+	}
+
+	@Test
+	public void errorsThatDifferOnAFieldAreDistinct() {
+		TestErrorIndex index = new TestErrorIndex();
+		index.add(error("p", "Stack", "push"));
+		index.add(error("p", "Stack", "pop"));
+		index.add(error("q", "Stack", "push"));
+		index.add(error("p", "Queue", "push"));
+		assertEquals(4, index.size());
+		assertEquals(0, index.getOccurrences(error("r", "Stack", "push")));
+	}
+
+	@Test
+	public void boundariesBetweenFieldsArePartOfTheFingerprint() {
+		TestError first = error("p", "AB", "c");
+		TestError second = error("p", "A", "bc");
+		assertEquals("AB", first.getClassName());
+		assertEquals("bc", second.getMethodName());
+		assertNotEquals(TestErrorIndex.fingerprint(first), TestErrorIndex.fingerprint(second));
+		TestErrorIndex index = new TestErrorIndex();
+		index.add(first);
+		index.add(second);
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void hashCodeIsTheSameForEqualErrors() {
+		TestError first = error("p", "Stack", "push");
+		TestError second = error("P", "stack", "PUSH");
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+	}
+
+	@Test
+	public void indexGrowsAndKeepsTheOrderOfTheErrors() {
+		TestErrorIndex index = new TestErrorIndex();
+		List<TestError> added = new ArrayList<TestError>();
+		for (int i = 0; i < 1000; i++) {
+			TestError te = error("p", "Stack", "m" + i);
+			added.add(te);
+			index.add(te);
+		}
+		for (int i = 999; i >= 0; i--) {
+			index.add(error("p", "Stack", "M" + i));
+		}
+		assertEquals(1000, index.size());
+		assertEquals(new HashSet<TestError>(added).size(), index.size());
+		assertEquals(added, new ArrayList<TestError>(index.toSet()));
+		for (TestError te : added) {
+			assertEquals(2, index.getOccurrences(te));
+		}
+	}
+
+	@Test
+	public void addAllSumsTheOccurrences() {
+		TestErrorIndex first = new TestErrorIndex();
+		first.add(error("p", "Stack", "push"));
+		first.add(error("p", "Stack", "push"));
+		TestErrorIndex second = new TestErrorIndex();
+		second.add(error("p", "Stack", "push"));
+		second.add(error("p", "Stack", "pop"));
+		first.addAll(second);
+		assertEquals(2, first.size());
+		assertEquals(3, first.getOccurrences(error("p", "Stack", "push")));
+		assertEquals(1, first.getOccurrences(error("p", "Stack", "pop")));
+	}
+}
@@ -0,0 +1,111 @@
+package detect;
+
+import static detect.ResultProducerTest.errorTestcase;
+import static detect.ResultProducerTest.writeReport;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import utils.Constants;
+import utils.Workspace;
+
+/**
+ * Checks of the merge of the reports of the JUnit workers and of the read of several result files.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class TestRunnerPoolTest {
+
+	private static final String POSTCONDITION = "org.jmlspecs.jmlrac.runtime.JMLExitNormalPostconditionError";
+
+	private File dir;
+
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("jmlOK-reports").toFile();
+	}
+
+	@After
+	public void deleteDirectory() {
+		FileUtils.deleteQuietly(dir);
+	}
+
+	private Set<String> methodsOf(Set<TestError> errors) {
+		Set<String> methods = new HashSet<String>();
+		for (TestError te : errors) {
+			methods.add(te.getMethodName());
+		}
+		return methods;
+	}
+
+	@Test
+	public void mergedReportHasAllTestcasesAndTheirTotals() throws Exception {
+		File first = writeReport(dir, "worker0.xml",
+				"  <testcase classname=\"RandoopTest0\" name=\"test1\" time=\"0.01\" />",
+				errorTestcase("test2", POSTCONDITION, "Stack", "push", 20));
+		File second = writeReport(dir, "worker1.xml", errorTestcase("test1", POSTCONDITION, "Stack", "pop", 20));
+		File merged = new File(dir, "TEST-RandoopTest.xml");
+		TestRunnerPool.mergeReports(Arrays.asList(first, second), merged, "RandoopTest");
+
+		Element suite = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(merged).getDocumentElement();
+		assertEquals("RandoopTest", suite.getAttribute("name"));
+		assertEquals("3", suite.getAttribute("tests"));
+		assertEquals(1.0, Double.parseDouble(suite.getAttribute("time")), 0.001);
+		assertEquals(3, suite.getElementsByTagName("testcase").getLength());
+		assertEquals(2, suite.getElementsByTagName("error").getLength());
+
+		ResultProducer producer = new ResultProducer(new Workspace(dir.getAbsolutePath()));
+		Set<TestError> errors = producer.listErrors(Constants.JMLC_COMPILER, Arrays.asList(merged));
+		assertEquals(new HashSet<String>(Arrays.asList("push", "pop")), methodsOf(errors));
+		assertEquals(3, producer.getTestsExecuted());
+	}
+
+	@Test
+	public void errorsOfAllResultFilesAreMerged() throws Exception {
+		File first = writeReport(dir, "TEST-RandoopTest0.xml", errorTestcase("test1", POSTCONDITION, "Stack", "push", 20));
+		File second = writeReport(dir, "TEST-RandoopTest1.xml", errorTestcase("test1", POSTCONDITION, "Stack", "pop", 20),
+				errorTestcase("test2", POSTCONDITION, "Stack", "push", 30));
+		ResultProducer producer = new ResultProducer(new Workspace(dir.getAbsolutePath()));
+		Set<TestError> errors = producer.listErrors(Constants.JMLC_COMPILER, Arrays.asList(first, second));
+		assertEquals(new HashSet<String>(Arrays.asList("push", "pop")), methodsOf(errors));
+		assertEquals(2, producer.getNCTotal());
+		assertEquals(3, producer.getTestsExecuted());
+		for (TestError te : errors) {
+			assertEquals(te.getMethodName().equals("push") ? 2 : 1, producer.getErrorIndex().getOccurrences(te));
+		}
+	}
+
+	@Test
+	public void resultFileThatFailsDoesNotDropTheOthers() throws Exception {
+		File first = writeReport(dir, "TEST-RandoopTest0.xml", errorTestcase("test1", POSTCONDITION, "Stack", "push", 20));
+		// A jmlrac error without the line of the test that revealed it cannot be read.
+		File broken = writeReport(dir, "TEST-RandoopTest1.xml", "  <testcase classname=\"RandoopTest1\" name=\"test1\">\n"
+				+ "    <error message=\"by method Stack.peek regarding code in File\" type=\"" + POSTCONDITION + "\">broken</error>\n"
+				+ "  </testcase>");
+		File third = writeReport(dir, "TEST-RandoopTest2.xml", errorTestcase("test1", POSTCONDITION, "Stack", "pop", 20));
+		ResultProducer producer = new ResultProducer(new Workspace(dir.getAbsolutePath()));
+		Set<TestError> errors = producer.listErrors(Constants.JMLC_COMPILER, Arrays.asList(first, broken, third));
+		assertEquals(new HashSet<String>(Arrays.asList("push", "pop")), methodsOf(errors));
+	}
+
+	@Test
+	public void noResultFileGivesNoError() {
+		ResultProducer producer = new ResultProducer(new Workspace(dir.getAbsolutePath()));
+		assertTrue(producer.listErrors(Constants.JMLC_COMPILER, new ArrayList<File>()).isEmpty());
+	}
+}
@@ -0,0 +1,114 @@
+package utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+/**
+ * Checks that the metadata read from a .class file is the one taken from the class loaded.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class ClassMetadataTest {
+
+	/**
+	 * Class with long and double constants, which take two entries of the constant pool.
+	 */
+	static class Numbers implements Serializable, Comparable<Numbers> {
+		private static final long serialVersionUID = 1L;
+		static final long BIG = 1234567890123L;
+		static final double RATIO = 0.75;
+		float scale = 1.5f;
+		String name = "numbers";
+
+		@Override
+		public int compareTo(Numbers o) {
+			return name.compareTo(o.name);
+		}
+	}
+
+	/**
+	 * Inner class, with the synthetic field of its outer instance.
+	 */
+	class Inner {
+		int value;
+	}
+
+	interface Shape extends Comparable<Shape> {
+		int SIDES = 0;
+	}
+
+	enum Color { RED, GREEN }
+
+	private static ClassMetadata read(Class<?> clazz) throws IOException {
+		InputStream in = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class");
+		try {
+			return ClassMetadata.read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void assertSameAsLoaded(Class<?> clazz) throws IOException {
+		ClassMetadata expected = ClassMetadata.fromClass(clazz);
+		ClassMetadata actual = read(clazz);
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getSuperclassName(), actual.getSuperclassName());
+		assertEquals(expected.getInterfaces(), actual.getInterfaces());
+		assertEquals(new HashSet<String>(expected.getFields()), new HashSet<String>(actual.getFields()));
+	}
+
+	@Test
+	public void classWithLongAndDoubleConstants() throws IOException {
+		assertSameAsLoaded(Numbers.class);
+		assertEquals(5, read(Numbers.class).getFields().size());
+	}
+
+	@Test
+	public void innerClassWithSyntheticField() throws IOException {
+		assertSameAsLoaded(Inner.class);
+	}
+
+	@Test
+	public void interfaceHasNoSuperclass() throws IOException {
+		assertSameAsLoaded(Shape.class);
+		assertNull(read(Shape.class).getSuperclassName());
+	}
+
+	@Test
+	public void enumWithSyntheticValues() throws IOException {
+		assertSameAsLoaded(Color.class);
+	}
+
+	@Test
+	public void classesOfTheJDK() throws IOException {
+		for (Class<?> clazz : new Class<?>[] {Object.class, String.class, java.util.ArrayList.class, java.util.HashMap.class}) {
+			assertSameAsLoaded(clazz);
+		}
+		assertNull(read(Object.class).getSuperclassName());
+		try {
+			// Collectors uses lambdas, so its pool has method handles, method types and invokedynamic entries.
+			assertSameAsLoaded(Class.forName("java.util.stream.Collectors"));
+		} catch (ClassNotFoundException e) {
+			// Runtimes older than Java 8 have no such class.
+		}
+	}
+
+	@Test
+	public void streamThatIsNotAClassFile() {
+		try {
+			ClassMetadata.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+			fail("The stream is not a class file.");
+		} catch (IOException e) {
+			assertEquals("Not a class file.", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks of the tail kept in memory, of the spill file and of the subscribers of a LogSink.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class LogSinkTest {
+
+	private File dir;
+
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("jmlOK-log").toFile();
+	}
+
+	@After
+	public void deleteDirectory() {
+		FileUtils.deleteQuietly(dir);
+	}
+
+	private static void write(LogSink log, String text) throws IOException {
+		log.write(text.getBytes("US-ASCII"));
+	}
+
+	@Test
+	public void tailKeepsAllOutputShorterThanItsSize() throws IOException {
+		LogSink log = new LogSink(16);
+		write(log, "abc");
+		write(log, "def");
+		assertEquals("abcdef", log.getTail());
+		assertEquals(6, log.getWritten());
+		assertNull(log.getSpillFile());
+	}
+
+	@Test
+	public void tailKeepsTheLastBytesWhenItWrapsAround() throws IOException {
+		LogSink log = new LogSink(8);
+		write(log, "0123456");
+		write(log, "789");
+		assertEquals("23456789", log.getTail());
+		write(log, "ab");
+		assertEquals("456789ab", log.getTail());
+		log.write('c');
+		assertEquals("56789abc", log.getTail());
+		assertEquals(13, log.getWritten());
+	}
+
+	@Test
+	public void chunkLongerThanTheTailKeepsItsEnd() throws IOException {
+		LogSink log = new LogSink(4);
+		write(log, "xy");
+		write(log, "0123456789");
+		assertEquals("6789", log.getTail());
+	}
+
+	@Test
+	public void chunkIsTakenFromItsOffset() throws IOException {
+		LogSink log = new LogSink(8);
+		log.write("--abc--".getBytes("US-ASCII"), 2, 3);
+		assertEquals("abc", log.getTail());
+	}
+
+	@Test
+	public void emptyTailKeepsNothing() throws IOException {
+		LogSink log = new LogSink(0);
+		write(log, "abc");
+		assertEquals("", log.getTail());
+		assertEquals(3, log.getWritten());
+	}
+
+	@Test
+	public void spillFileHasAllOutput() throws IOException {
+		File spill = new File(dir, "logs/stage.log");
+		LogSink log = new LogSink(spill, 4);
+		write(log, "first line\n");
+		write(log, "second line\n");
+		log.close();
+		assertEquals("first line\nsecond line\n", FileUtils.readFileToString(spill, "US-ASCII"));
+		assertEquals("ine\n", log.getTail());
+		// A sink written after being closed appends to its file.
+		write(log, "third\n");
+		log.close();
+		assertEquals("first line\nsecond line\nthird\n", FileUtils.readFileToString(spill, "US-ASCII"));
+	}
+
+	@Test
+	public void subscribersReceiveTheOutputWhileSubscribed() throws IOException {
+		LogSink log = new LogSink(4);
+		final ByteArrayOutputStream received = new ByteArrayOutputStream();
+		LogSink.Subscriber s = new LogSink.Subscriber() {
+			@Override
+			public void write(byte[] b, int off, int len) {
+				received.write(b, off, len);
+			}
+		};
+		write(log, "before ");
+		log.subscribe(s);
+		write(log, "during ");
+		log.unsubscribe(s);
+		write(log, "after");
+		assertEquals("during ", received.toString("US-ASCII"));
+	}
+}
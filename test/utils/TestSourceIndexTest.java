@@ -0,0 +1,163 @@
+package utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the lines read through TestSourceIndex are the ones read before, when the test file was
+ * read from the top for each nonconformance.
+ * @author Alysson Milanez and Dennis Sousa.
+ * @version 1.0
+ */
+public class TestSourceIndexTest {
+
+	private static final String[] TEST_FILE = {
+		"import junit.framework.*;",
+		"",
+		"public class RandoopTest0 extends TestCase {",
+		"",
+		"  public void test1() throws Throwable {",
+		"    Stack var0 = new Stack();",
+		"    var0.push(1);",
+		"    var0.push(1);",
+		"    var0.push(1);",
+		"  }",
+		"",
+		"  public void test2() throws Throwable {",
+		"    Stack var0 = new Stack();",
+		"    var0.pop();",
+		"  }",
+		"  public void test2() { }",
+		"    var0.pop();",
+		"}"
+	};
+
+	private File dir;
+
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("jmlOK-index").toFile();
+		TestSourceIndex.clear();
+	}
+
+	@After
+	public void deleteDirectory() {
+		TestSourceIndex.clear();
+		FileUtils.deleteQuietly(dir);
+	}
+
+	private File write(String name, String lineSeparator) throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (String line : TEST_FILE) {
+			content.append(line).append(lineSeparator);
+		}
+		File file = new File(dir, name);
+		FileUtils.writeStringToFile(file, content.toString(), "US-ASCII");
+		return file;
+	}
+
+	/**
+	 * The loop FileUtil.lineSampleWhoOriginatedError ran before the test files were indexed.
+	 */
+	private static String readFromTheTop(File file, int wishedLine, String test, int[] arr) throws IOException {
+		BufferedReader f = new BufferedReader(new FileReader(file));
+		String line;
+		String testExtract = "";
+		boolean foundTest = false;
+		int counterLines = 0;
+		while ((line = f.readLine()) != null) {
+			counterLines++;
+			if(line.contains("public void " + test + "()")){
+				foundTest = true;
+			}else if (counterLines == wishedLine) {
+				f.close();
+				arr[0] = countMatches(testExtract, line);
+				return line;
+			}else if(foundTest){
+				testExtract += line;
+			}
+		}
+		f.close();
+		return "";
+	}
+
+	/**
+	 * Count the occurrences of a text, as StringUtils.countMatches.
+	 */
+	private static int countMatches(String text, String sub) {
+		if(sub.isEmpty())
+			return 0;
+		int count = 0;
+		for (int i = text.indexOf(sub); i != -1; i = text.indexOf(sub, i + sub.length())) {
+			count++;
+		}
+		return count;
+	}
+
+	private void assertSameAsReadFromTheTop(File file) throws IOException {
+		TestSourceIndex index = TestSourceIndex.forFile(file);
+		for (String test : new String[] {"test1", "test2", "test3"}) {
+			for (int wishedLine = 0; wishedLine <= TEST_FILE.length + 1; wishedLine++) {
+				int[] expected = {-1};
+				int[] actual = {-1};
+				String message = file.getName() + " " + test + " line " + wishedLine;
+				assertEquals(message, readFromTheTop(file, wishedLine, test, expected),
+						index.lineSampleWhoOriginatedError(wishedLine, test, actual));
+				assertEquals(message, expected[0], actual[0]);
+			}
+		}
+	}
+
+	@Test
+	public void linesAreTheOnesReadFromTheTopWithLF() throws IOException {
+		assertSameAsReadFromTheTop(write("RandoopTest0.java", "\n"));
+	}
+
+	@Test
+	public void linesAreTheOnesReadFromTheTopWithCRLF() throws IOException {
+		assertSameAsReadFromTheTop(write("RandoopTest0.java", "\r\n"));
+	}
+
+	@Test
+	public void linesAreTheOnesReadFromTheTopWithCR() throws IOException {
+		assertSameAsReadFromTheTop(write("RandoopTest0.java", "\r"));
+	}
+
+	@Test
+	public void lineIsCountedOnTheMethodBeforeIt() throws IOException {
+		TestSourceIndex index = TestSourceIndex.forFile(write("RandoopTest0.java", "\r\n"));
+		int[] arr = {0};
+		assertEquals("    var0.push(1);", index.lineSampleWhoOriginatedError(9, "test1", arr));
+		assertEquals(2, arr[0]);
+	}
+
+	@Test
+	public void declarationLineAndMissingLineGiveNoSample() throws IOException {
+		TestSourceIndex index = TestSourceIndex.forFile(write("RandoopTest0.java", "\n"));
+		int[] arr = {7};
+		assertEquals("", index.lineSampleWhoOriginatedError(5, "test1", arr));
+		assertEquals("", index.lineSampleWhoOriginatedError(TEST_FILE.length + 1, "test1", arr));
+		assertEquals(7, arr[0]);
+		assertEquals(-1, index.getMethodLine("test3"));
+		assertEquals(12, index.getMethodLine("test2"));
+	}
+
+	@Test
+	public void changedFileIsIndexedAgain() throws IOException {
+		File file = write("RandoopTest0.java", "\n");
+		assertEquals(TEST_FILE.length, TestSourceIndex.forFile(file).getLineCount());
+		FileUtils.writeStringToFile(file, "public void test1() {\n}\n", "US-ASCII");
+		file.setLastModified(file.lastModified() + 2000);
+		assertEquals(2, TestSourceIndex.forFile(file).getLineCount());
+	}
+}